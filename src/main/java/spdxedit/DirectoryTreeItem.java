@@ -0,0 +1,108 @@
+package spdxedit;
+
+import javafx.application.Platform;
+import javafx.scene.control.TreeItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A file or directory in the directory tree. A directory's contents are only listed the first time it's expanded,
+ * off the FX thread, and added to the tree in batches as they're found.
+ */
+class DirectoryTreeItem extends TreeItem<Path> {
+
+    /**
+     * How many entries are added to the tree at a time.
+     */
+    static final int BATCH_SIZE = 256;
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryTreeItem.class);
+
+    private static final ExecutorService listers = Executors.newSingleThreadExecutor(new ListerThreadFactory());
+
+    private final boolean directory;
+    private boolean listed = false;
+
+    DirectoryTreeItem(Path path, boolean directory) {
+        super(path);
+        this.directory = directory;
+        if (directory) {
+            expandedProperty().addListener((observable, wasExpanded, isExpanded) -> {
+                if (isExpanded) list();
+            });
+        }
+    }
+
+    /**
+     * The root of a tree showing the directory. The root is expanded, so its contents are listed right away.
+     */
+    static DirectoryTreeItem forRoot(Path base) {
+        DirectoryTreeItem result = new DirectoryTreeItem(base, true);
+        result.setExpanded(true);
+        return result;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return !directory;
+    }
+
+    private void list() {
+        if (listed) return;
+        listed = true;
+        final Path path = getValue();
+        listers.submit(() -> {
+            List<DirectoryTreeItem> batch = new ArrayList<>(BATCH_SIZE);
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+                for (Path entry : entries) {
+                    batch.add(new DirectoryTreeItem(entry, isDirectory(entry)));
+                    if (batch.size() == BATCH_SIZE) {
+                        addChildren(batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.error("Unable to list directory " + path, e);
+            }
+            addChildren(batch);
+        });
+    }
+
+    private void addChildren(List<DirectoryTreeItem> batch) {
+        if (batch.isEmpty()) return;
+        Platform.runLater(() -> getChildren().addAll(batch));
+    }
+
+    //Links aren't followed, so a link to a parent directory doesn't make the tree endless
+    private static boolean isDirectory(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isDirectory();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static class ListerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "spdx-list-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package spdxedit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.spdx.rdfparser.model.Relationship.RelationshipType;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A rule giving the files whose names match a glob, such as {@code **}{@code /test/**} or {@code **}{@code /*.md},
+ * a relationship to their package. As in {@code .gitignore}, a leading {@code **}{@code /} also matches files at the
+ * root of the package.
+ * <p>
+ * Written as {@code <glob> = <relationship type>}, e.g. {@code **}{@code /*.md = DOCUMENTATION_OF}.
+ */
+public final class FileRelationshipRule {
+
+    private final String glob;
+    private final PathMatcher matcher;
+    private final RelationshipType relationshipType;
+
+    public FileRelationshipRule(String glob, RelationshipType relationshipType) {
+        this.glob = Objects.requireNonNull(glob);
+        this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        this.relationshipType = Objects.requireNonNull(relationshipType);
+    }
+
+    /**
+     * Parses one rule per line, skipping blank lines and those starting with {@code #}.
+     *
+     * @throws IllegalArgumentException If a line isn't a rule.
+     */
+    public static List<FileRelationshipRule> parse(String text) {
+        List<FileRelationshipRule> result = new ArrayList<>();
+        for (String line : StringUtils.split(text, "\r\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int separator = line.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected <glob> = <relationship type>: " + line);
+            }
+            String glob = line.substring(0, separator).trim();
+            String type = StringUtils.replaceChars(line.substring(separator + 1).trim().toUpperCase(), ' ', '_');
+            try {
+                result.add(new FileRelationshipRule(glob, RelationshipType.valueOf(type)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid rule: " + line, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether the rule applies to the file.
+     *
+     * @param fileName The SPDX file name, relative to the package, with or without a leading {@code ./}.
+     */
+    public boolean matches(String fileName) {
+        String name = StringUtils.removeStart(fileName, "./");
+        return matcher.matches(Paths.get(name)) || matcher.matches(Paths.get("/" + name));
+    }
+
+    public String getGlob() {
+        return glob;
+    }
+
+    public RelationshipType getRelationshipType() {
+        return relationshipType;
+    }
+
+    @Override
+    public String toString() {
+        return glob + " = " + relationshipType.name();
+    }
+}
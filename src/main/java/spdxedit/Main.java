@@ -5,6 +5,8 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import spdxedit.io.DocumentStore;
+import spdxedit.license.LicenseCatalog;
 import spdxedit.util.UiUtils;
 
 public class Main extends Application {
@@ -13,6 +15,11 @@ public class Main extends Application {
 
     @Override
     public void start(Stage primaryStage) throws Exception {
+        //Use the license list bundled with the SPDX tools rather than fetch each license from spdx.org, unless told otherwise
+        if (System.getProperty("SPDXParser.OnlyUseLocalLicenses") == null) {
+            System.setProperty("SPDXParser.OnlyUseLocalLicenses", "true");
+        }
+        LicenseCatalog.preload();
         Parent root = FXMLLoader.load(getClass().getResource("/MainScene.fxml"));
         primaryStage.setTitle(APP_TITLE);
         Scene scene = new Scene(root);
@@ -22,6 +29,11 @@ public class Main extends Application {
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        //Leaves no write transaction open on the store
+        DocumentStore.getDefault().close();
+    }
 
     public static void main(String[] args) {
         launch(args);
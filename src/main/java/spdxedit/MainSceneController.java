@@ -20,15 +20,18 @@ import org.spdx.rdfparser.model.SpdxDocument;
 import org.spdx.rdfparser.model.SpdxPackage;
 import org.spdx.tag.CommonCode;
 import org.spdx.tools.TagToRDF;
+import spdxedit.io.Compression;
+import spdxedit.io.DocumentStore;
 import spdxedit.io.FileDataType;
+import spdxedit.io.ParseWarning;
 import spdxedit.util.UiUtils;
 
 import java.io.*;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class MainSceneController {
 
@@ -55,15 +58,17 @@ public class MainSceneController {
 
 
     @FXML
-    private ListView<SpdxPackage> addedPackagesUiList;
+    private ListView<PackageHandle> addedPackagesUiList;
 
     private SpdxDocument documentToEdit = null;
 
+    private final DocumentStore documentStore = DocumentStore.getDefault();
+
     private static final Logger logger = LoggerFactory.getLogger(MainSceneController.class);
 
 
     //A representation of a package in the pacage list
-    static class SpdxPackageListCell extends ListCell<SpdxPackage> {
+    static class SpdxPackageListCell extends ListCell<PackageHandle> {
         public SpdxPackageListCell() {
             super();
             //A necessary hack to work around list view not selecting rows on click.
@@ -71,7 +76,7 @@ public class MainSceneController {
         }
 
         @Override
-        protected void updateItem(SpdxPackage item, boolean empty) {
+        protected void updateItem(PackageHandle item, boolean empty) {
             super.updateItem(item, empty);
             if (empty || item == null) {
                 setText(null);
@@ -89,7 +94,11 @@ public class MainSceneController {
 
         boolean first = true;
         for (String extension : extenions) {
-            FileChooser.ExtensionFilter spdxExtensionFilter = new FileChooser.ExtensionFilter(extension, "*." + extension);
+            //Compressed files of the type can be read and written too
+            List<String> patterns = Stream.of(Compression.values())
+                    .map(compression -> compression.getExtension() == null ? "*." + extension : "*." + extension + "." + compression.getExtension())
+                    .collect(Collectors.toList());
+            FileChooser.ExtensionFilter spdxExtensionFilter = new FileChooser.ExtensionFilter(extension, patterns);
             chooser.getExtensionFilters().add(spdxExtensionFilter);
             if (first){
                 chooser.setSelectedExtensionFilter(spdxExtensionFilter);
@@ -137,22 +146,6 @@ public class MainSceneController {
         }
     }
 
-    private static TreeItem<Path> getTreeForPath(final Path base) throws IOException {
-        final HashMap<Path, TreeItem<Path>> addedNodes = new HashMap<>();
-        TreeItem<Path> rootNode = new TreeItem<>(base);
-        rootNode.setExpanded(true);
-        addedNodes.put(base, rootNode);
-        Files.walk(base).forEachOrdered(path -> {
-            if (Objects.equals(path, base)) return;
-            TreeItem<Path> current = new TreeItem<>(path);
-            TreeItem<Path> parent = addedNodes.get(path.getParent());
-            parent.getChildren().add(current);
-            addedNodes.put(path, current);
-        });
-        return rootNode;
-
-    }
-
     public void handleNewDocumentClicked(MouseEvent event){
         TextInputDialog dialog = new TextInputDialog("http://url.example.com/spdx/builder");
         ((Stage)dialog.getDialogPane().getScene().getWindow()).getIcons().addAll(UiUtils.ICON_IMAGE_VIEW.getImage());
@@ -166,8 +159,12 @@ public class MainSceneController {
             result = dialog.showAndWait();
         }
         if (result.isPresent()){
-            SpdxDocument newDocument = SpdxLogic.createEmptyDocument(result.get());
-            loadSpdxDocument(newDocument);
+            try {
+                SpdxDocument newDocument = documentStore.add(SpdxLogic.createEmptyDocument(result.get()), Optional.empty());
+                loadSpdxDocument(newDocument);
+            } catch (InvalidSPDXAnalysisException e) {
+                throw new RuntimeException("Unable to create new SPDX document", e);
+            }
         }
 
     }
@@ -175,11 +172,7 @@ public class MainSceneController {
     public void handleChooseDirectoryClicked(MouseEvent event) {
         Optional<Path> chosenPath = selectDirectory(chooseDir.getParent().getScene().getWindow());
         if (!chosenPath.isPresent()) return;
-        try {
-            dirTree.setRoot(getTreeForPath(chosenPath.get()));
-        } catch (IOException ioe) {
-            logger.error("Unable to access directory " + chosenPath.toString(), ioe);
-        }
+        dirTree.setRoot(DirectoryTreeItem.forRoot(chosenPath.get()));
     }
 
 
@@ -192,7 +185,7 @@ public class MainSceneController {
         if (targetFile == null) //Dialog cancelled
             return;
         try {
-            outputType.get().writeToFile(targetFile, documentToEdit);
+            outputType.get().writeToFile(targetFile, documentToEdit, documentStore);
         } catch (IOException e) {
             logger.error("Unable to write SPDX file", e);
         }
@@ -202,8 +195,9 @@ public class MainSceneController {
         List<TreeItem<Path>> selectedNodes = dirTree.getSelectionModel().getSelectedItems();
         assert (selectedNodes.size() <= 1);
         Optional<Path> path = selectedNodes.size() > 0 ? Optional.of(selectedNodes.get(0).getValue()) : Optional.empty();
-        SpdxPackage newPackage = NewPackageDialog.createPackageWithPrompt(btnAddPackage.getScene().getWindow(), path, documentToEdit.getDocumentContainer());
-        addedPackagesUiList.getItems().add(newPackage);
+        Optional<SpdxPackage> newPackage = NewPackageDialog.createPackageWithPrompt(btnAddPackage.getScene().getWindow(), path, documentToEdit.getDocumentContainer());
+        if (!newPackage.isPresent()) return; //Cancelled
+        addedPackagesUiList.getItems().add(PackageIndex.forDocument(documentToEdit.getDocumentContainer()).getHandle(newPackage.get()));
         if (addedPackagesUiList.getSelectionModel().getSelectedItem() == null) {
             addedPackagesUiList.getSelectionModel().selectFirst();
         }
@@ -211,21 +205,37 @@ public class MainSceneController {
 
 
     private void loadSpdxDocument(SpdxDocument loadedDocument) {
+        if (documentToEdit != null && documentToEdit.getDocumentContainer() != loadedDocument.getDocumentContainer()) {
+            PackageIndex.documentClosed(documentToEdit.getDocumentContainer());
+            SharedLicenses.documentClosed(documentToEdit.getDocumentContainer());
+        }
         this.documentToEdit = loadedDocument;
-        this.addedPackagesUiList.getItems().setAll(SpdxLogic.getSpdxPackagesInDocument(loadedDocument).collect(Collectors.toList()));
+        this.addedPackagesUiList.getItems().setAll(PackageIndex.forDocument(loadedDocument.getDocumentContainer()).getPackages());
         this.txtDocumentName.setText(loadedDocument.getName());
         enableAllButtons();
     }
 
     public void handleLoadSpdxClicked(MouseEvent event) {
-        Optional<FileDataType> inputType = IoFileTypeSelectionDialog.getDataType("Load SPDX");
-        if (!inputType.isPresent())return;
-
-        File targetFile = getSpdxFileChooser(inputType.get().getExtensions()).showOpenDialog(saveSpdx.getScene().getWindow());
+        List<String> extensions = Stream.of(FileDataType.values())
+                .flatMap(type -> type.getExtensions().stream())
+                .distinct()
+                .collect(Collectors.toList());
+        File targetFile = getSpdxFileChooser(extensions).showOpenDialog(saveSpdx.getScene().getWindow());
         if (targetFile == null) return; //Cancelled
         try {
-            SpdxDocument loadedDocument = inputType.get().readFromFile(targetFile);
-            loadSpdxDocument(loadedDocument);
+            List<ParseWarning> warnings = new LinkedList<>();
+            //Only ask for the format if it can't be recognized
+            Optional<SpdxDocument> loadedDocument = FileDataType.readDetected(targetFile, warnings::add, documentStore,
+                    () -> IoFileTypeSelectionDialog.getDataType("Load SPDX"));
+            if (!loadedDocument.isPresent()) return; //Cancelled
+            if (warnings.size() > 0) {
+                Alert warningsAlert = new Alert(Alert.AlertType.WARNING, "Warnings occured in parsing " + targetFile.getName(), ButtonType.OK);
+                TextArea warningList = new TextArea();
+                warningList.setText(Joiner.on("\n").join(warnings));
+                warningsAlert.getDialogPane().setExpandableContent(warningList);
+                warningsAlert.showAndWait();
+            }
+            loadSpdxDocument(loadedDocument.get());
         } catch (InvalidSPDXAnalysisException isae) {
             logger.error("Invalid SPDX load attempt", isae);
             new Alert(Alert.AlertType.ERROR, "Invalid SPDX file " + targetFile.getAbsolutePath());
@@ -242,11 +252,14 @@ public class MainSceneController {
 
     public void handlePackageListClicked(MouseEvent event) {
         if (event.getClickCount() == 2) {
-            SpdxPackage toEdit = addedPackagesUiList.getSelectionModel().getSelectedItem();
-            List<SpdxPackage> otherPackages = SpdxLogic.getSpdxPackagesInDocument(documentToEdit)
-                    .filter(spdxPackage -> !Objects.equals(spdxPackage, toEdit))
+            PackageHandle toEdit = addedPackagesUiList.getSelectionModel().getSelectedItem();
+            if (toEdit == null) return;
+            //Only the package being edited is built; the others are just listed as relationship targets
+            List<PackageHandle> otherPackages = PackageIndex.forDocument(documentToEdit.getDocumentContainer()).getPackages().stream()
+                    .filter(handle -> !Objects.equals(handle, toEdit))
                     .collect(Collectors.toList());
-            PackageEditor.editPackage(toEdit, otherPackages, documentToEdit.getDocumentContainer(), addedPackagesUiList.getScene().getWindow());
+            PackageEditor.editPackage(toEdit.getPackage(), otherPackages, documentToEdit.getDocumentContainer(), addedPackagesUiList.getScene().getWindow());
+            addedPackagesUiList.refresh(); //The package may have been renamed
         }
     }
 
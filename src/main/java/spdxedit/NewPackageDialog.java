@@ -13,6 +13,7 @@ import org.slf4j.LoggerFactory;
 import org.spdx.rdfparser.SpdxDocumentContainer;
 import org.spdx.rdfparser.model.SpdxPackage;
 import spdxedit.license.LicenseEditControl;
+import spdxedit.scan.ScanProgress;
 import spdxedit.util.UiUtils;
 
 import java.io.IOException;
@@ -38,6 +39,9 @@ public class NewPackageDialog {
     @FXML
     private CheckBox chkRemotePackage;
 
+    @FXML
+    private CheckBox chkShareIdenticalFiles;
+
     @FXML
     private TextArea downloadLocation;
 
@@ -51,7 +55,10 @@ public class NewPackageDialog {
 
     private LicenseEditControl declaredLicenseEdit;
 
-    public static SpdxPackage createPackageWithPrompt(Window parentWindow, Optional<Path> path, SpdxDocumentContainer documentContainer) {
+    /**
+     * @return The new package, already added to the document, or empty if creating it was cancelled.
+     */
+    public static Optional<SpdxPackage> createPackageWithPrompt(Window parentWindow, Optional<Path> path, SpdxDocumentContainer documentContainer) {
         final NewPackageDialog controller = new NewPackageDialog(path, documentContainer);
         final Stage dialogStage = new Stage();
         dialogStage.setTitle("Create SPDX Package");
@@ -78,6 +85,8 @@ public class NewPackageDialog {
                 controller.chkRemotePackage.setDisable(true);
                 controller.chkOmitHiddenFiles.setSelected(false);
                 controller.chkOmitHiddenFiles.setDisable(true);
+                controller.chkShareIdenticalFiles.setSelected(false);
+                controller.chkShareIdenticalFiles.setDisable(true);
             }
 
             dialogStage.showAndWait();
@@ -101,6 +110,7 @@ public class NewPackageDialog {
         assert downloadLocation != null : "fx:id=\"downloadLocation\" was not injected: check your FXML file 'NewPackageDialog.fxml'.";
         assert chkOmitHiddenFiles != null : "fx:id=\"chkOmitHiddenFiles\" was not injected: check your FXML file 'NewPackageDialog.fxml'.";
         assert chkRemotePackage != null : "fx:id=\"chkRemotePackage\" was not injected: check your FXML file 'NewPackageDialog.fxml'.";
+        assert chkShareIdenticalFiles != null : "fx:id=\"chkShareIdenticalFiles\" was not injected: check your FXML file 'NewPackageDialog.fxml'.";
         assert paneDeclaredLicense != null : "fx:id=\"paneDeclaredLicense\" was not injected: check your FXML file 'NewPackageDialog.fxml'.";
 
         declaredLicenseEdit = new LicenseEditControl(this.documentContainer, null, false);
@@ -110,9 +120,33 @@ public class NewPackageDialog {
     }
 
 
-    private SpdxPackage createSpdxPackageFromInputs() {
-        Optional<Path> pathForPackage = chkRemotePackage.isSelected() ? Optional.empty() : Optional.of(this.path);
-        return SpdxLogic.createSpdxPackageForPath(pathForPackage, this.documentContainer.getSpdxDocument(), declaredLicenseEdit.getValue(), name.getText(), downloadLocation.getText(), chkOmitHiddenFiles.isSelected());
+    /**
+     * Scans the package's files in the background, then adds the package to the document. Files identical to
+     * already reviewed ones get their licenses, if so chosen. A remote package has nothing to scan, and is added
+     * to the document as it is.
+     *
+     * @return The new package, or empty if the scan was cancelled.
+     */
+    private Optional<SpdxPackage> createSpdxPackageFromInputs() {
+        if (chkRemotePackage.isSelected()) {
+            try {
+                SpdxPackage pkg = SpdxLogic.scanSpdxPackage(Optional.empty(), declaredLicenseEdit.getValue(), name.getText(), downloadLocation.getText(), false, ScanProgress.NONE);
+                SpdxLogic.addPackageToDocument(this.documentContainer.getSpdxDocument(), pkg);
+                return Optional.of(pkg);
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to create package", e);
+            }
+        }
+        Optional<Path> pathForPackage = Optional.of(this.path);
+        Optional<SpdxPackage> result = UiUtils.runWithProgress("Creating package " + name.getText(),
+                new PackageCreationTask(pathForPackage, declaredLicenseEdit.getValue(), name.getText(), downloadLocation.getText(), chkOmitHiddenFiles.isSelected()));
+        result.ifPresent(pkg -> {
+            int reviewed = SpdxLogic.addScannedPackageToDocument(this.documentContainer.getSpdxDocument(), pkg, pathForPackage, chkShareIdenticalFiles.isSelected());
+            if (reviewed > 0) {
+                logger.info("Copied licenses from reviewed identical files to " + reviewed + " files of package " + pkg.getName());
+            }
+        });
+        return result;
     }
 
 
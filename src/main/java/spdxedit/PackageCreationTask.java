@@ -0,0 +1,101 @@
+package spdxedit;
+
+import javafx.concurrent.Task;
+import org.apache.commons.lang3.time.DurationFormatUtils;
+import org.spdx.rdfparser.license.AnyLicenseInfo;
+import org.spdx.rdfparser.model.SpdxPackage;
+import spdxedit.scan.ScanProgress;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scans the files of a new package in the background, reporting the files found, the bytes hashed, the throughput
+ * and the time left. The package isn't added to any document: that's left to whoever gets the result, on the FX
+ * thread, in one step.
+ */
+class PackageCreationTask extends Task<SpdxPackage> {
+
+    private static final long UPDATE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Optional<Path> path;
+    private final AnyLicenseInfo declaredLicense;
+    private final String name;
+    private final String downloadLocation;
+    private final boolean omitHiddenFiles;
+
+    private final AtomicInteger filesFound = new AtomicInteger();
+    private final AtomicLong bytesFound = new AtomicLong();
+    private final AtomicInteger filesScanned = new AtomicInteger();
+    private final AtomicLong bytesScanned = new AtomicLong();
+    //When the first file was scanned, i.e. when all were found; 0 before then
+    private final AtomicLong scanStart = new AtomicLong();
+    private final AtomicLong lastUpdate = new AtomicLong();
+
+    private final ScanProgress progress = new ScanProgress() {
+        @Override
+        public void fileFound(long size) {
+            filesFound.incrementAndGet();
+            bytesFound.addAndGet(size);
+            update(false);
+        }
+
+        @Override
+        public void fileScanned(long size) {
+            scanStart.compareAndSet(0, System.nanoTime());
+            filesScanned.incrementAndGet();
+            bytesScanned.addAndGet(size);
+            update(false);
+        }
+    };
+
+    PackageCreationTask(Optional<Path> path, AnyLicenseInfo declaredLicense, String name, String downloadLocation, boolean omitHiddenFiles) {
+        this.path = path;
+        this.declaredLicense = declaredLicense;
+        this.name = name;
+        this.downloadLocation = downloadLocation;
+        this.omitHiddenFiles = omitHiddenFiles;
+    }
+
+    @Override
+    protected SpdxPackage call() throws Exception {
+        updateMessage("Finding files...");
+        SpdxPackage result = SpdxLogic.scanSpdxPackage(path, declaredLicense, name, downloadLocation, omitHiddenFiles, progress);
+        update(true);
+        return result;
+    }
+
+    //Task coalesces updates itself, but formatting one for every file would still be wasteful
+    private void update(boolean force) {
+        long now = System.nanoTime();
+        long last = lastUpdate.get();
+        if (!force && (now - last < UPDATE_INTERVAL_NANOS || !lastUpdate.compareAndSet(last, now))) return;
+
+        long start = scanStart.get();
+        if (start == 0) {
+            updateMessage(String.format("Found %,d files (%s)", filesFound.get(), formatSize(bytesFound.get())));
+            return;
+        }
+        long scanned = bytesScanned.get();
+        long total = bytesFound.get();
+        updateProgress(scanned, total);
+        double seconds = Math.max(now - start, 1) / 1e9;
+        double bytesPerSecond = scanned / seconds;
+        StringBuilder message = new StringBuilder(String.format("%,d of %,d files, %s of %s hashed (%s/s)",
+                filesScanned.get(), filesFound.get(), formatSize(scanned), formatSize(total), formatSize((long) bytesPerSecond)));
+        if (scanned < total && bytesPerSecond > 0) {
+            long millisLeft = (long) ((total - scanned) / bytesPerSecond * 1000);
+            message.append(", about ").append(DurationFormatUtils.formatDuration(millisLeft, "H:mm:ss")).append(" left");
+        }
+        updateMessage(message.toString());
+    }
+
+    private static String formatSize(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format("%.1f %siB", bytes / (double) (1L << (unit * 10)), "KMGTPE".charAt(unit - 1));
+    }
+}
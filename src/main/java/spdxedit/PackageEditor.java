@@ -1,9 +1,11 @@
 package spdxedit;
 
+import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Ordering;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.ListChangeListener;
+import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Insets;
@@ -21,7 +23,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.spdx.rdfparser.InvalidSPDXAnalysisException;
 import org.spdx.rdfparser.SpdxDocumentContainer;
-import org.spdx.rdfparser.model.Relationship;
 import org.spdx.rdfparser.model.Relationship.RelationshipType;
 import org.spdx.rdfparser.model.SpdxFile;
 import org.spdx.rdfparser.model.SpdxFile.FileType;
@@ -30,6 +31,7 @@ import spdxedit.externalRef.ExternalRefListControl;
 import spdxedit.license.FileLicenseEditor;
 import spdxedit.license.LicenseEditControl;
 import spdxedit.license.SpdxWithoutExeption;
+import spdxedit.scan.RescanSummary;
 import spdxedit.util.StringableWrapper;
 import spdxedit.util.UiUtils;
 
@@ -64,7 +66,13 @@ public class PackageEditor {
     private Button btnDeleteFileFromPackage;
 
     @FXML
-    private Button btnAddFile;
+    private MenuButton btnAddFile;
+
+    @FXML
+    private Button btnRescan;
+
+    @FXML
+    private Button btnFileRules;
 
     @FXML
     private Button btnCopyright;
@@ -116,7 +124,7 @@ public class PackageEditor {
      * PACKAGE RELATIONSHIP REPRESENTATIONS
      **/
     @FXML
-    private ListView<SpdxPackage> lstTargetPackages;
+    private ListView<PackageHandle> lstTargetPackages;
 
     @FXML
     private ChoiceBox<RelationshipType> chcNewRelationshipType;
@@ -164,14 +172,23 @@ public class PackageEditor {
     //The package being edited
     private SpdxPackage pkg;
 
-    //The file currently being edited
+    //The file currently being edited, if only one is selected
     private SpdxFile currentFile;
 
+    //The files the file type and relationship controls apply to: all those selected
+    private List<SpdxFile> selectedFiles = ImmutableList.of();
+
+    //The file types checked for the selected files, to tell what was checked or unchecked since
+    private Set<FileType> checkedFileTypes = EnumSet.noneOf(FileType.class);
+
+    //The relationship checkboxes, by the relationship to the package they stand for
+    private Map<RelationshipType, CheckBox> fileRelationshipCheckboxes;
+
     //The container of the document being edited.
     private SpdxDocumentContainer documentContainer;
 
     //Packages to which the edited package can have a relationship
-    private List<SpdxPackage> otherPackages;
+    private List<PackageHandle> otherPackages;
 
 
     @FXML
@@ -188,6 +205,8 @@ public class PackageEditor {
         assert btnOk != null : "fx:id=\"btnOk\" was not injected: check your FXML file 'PackageEditor.fxml'.";
         assert btnDeleteFileFromPackage != null : "fx:id=\"btnDeleteFileFromPackage\" was not injected: check your FXML file 'PackageEditor.fxml'.";
         assert btnAddFile != null : "fx:id=\"btnAddFile\" was not injected: check your FXML file 'PackageEditor.fxml'.";
+        assert btnRescan != null : "fx:id=\"btnRescan\" was not injected: check your FXML file 'PackageEditor.fxml'.";
+        assert btnFileRules != null : "fx:id=\"btnFileRules\" was not injected: check your FXML file 'PackageEditor.fxml'.";
         assert btnCopyright != null : "fx:id=\"btnCopyright\" was not injected: check your FXML file 'PackageEditor.fxml'.";
         assert btnFileLicense != null : "fx:id=\"btnFileLicense\" was not injected: check your FXML file 'PackageEditor.fxml'.";
 
@@ -201,13 +220,15 @@ public class PackageEditor {
         assert chkExcludeFile != null : "fx:id=\"chkExcludeFile\" was not injected: check your FXML file 'PackageEditor.fxml'.";
 
         //Initialise file relationship checkbox handling
-        //TODO: Could make this easier by extending the CheckBox control?
-        chkDataFile.selectedProperty().addListener((observable, oldValue, newValue) -> addOrRemoveFileRelationshipToPackage(RelationshipType.DATA_FILE_OF, newValue));
-        chkTestCase.selectedProperty().addListener((observable, oldValue, newValue) -> addOrRemoveFileRelationshipToPackage(RelationshipType.TEST_CASE_OF, newValue));
-        chkDocumentation.selectedProperty().addListener((observable, oldValue, newValue) -> addOrRemoveFileRelationshipToPackage(RelationshipType.DOCUMENTATION_OF, newValue));
-        chkOptionalComponent.selectedProperty().addListener((observable, oldValue, newValue) -> addOrRemoveFileRelationshipToPackage(RelationshipType.OPTIONAL_COMPONENT_OF, newValue));
-        chkMetafile.selectedProperty().addListener((observable, oldValue, newValue) -> addOrRemoveFileRelationshipToPackage(RelationshipType.METAFILE_OF, newValue));
-        chkBuildTool.selectedProperty().addListener((observable, oldValue, newValue) -> addOrRemoveFileRelationshipToPackage(RelationshipType.BUILD_TOOL_OF, newValue));
+        fileRelationshipCheckboxes = new EnumMap<>(RelationshipType.class);
+        fileRelationshipCheckboxes.put(RelationshipType.DATA_FILE_OF, chkDataFile);
+        fileRelationshipCheckboxes.put(RelationshipType.TEST_CASE_OF, chkTestCase);
+        fileRelationshipCheckboxes.put(RelationshipType.DOCUMENTATION_OF, chkDocumentation);
+        fileRelationshipCheckboxes.put(RelationshipType.OPTIONAL_COMPONENT_OF, chkOptionalComponent);
+        fileRelationshipCheckboxes.put(RelationshipType.METAFILE_OF, chkMetafile);
+        fileRelationshipCheckboxes.put(RelationshipType.BUILD_TOOL_OF, chkBuildTool);
+        fileRelationshipCheckboxes.forEach((relationshipType, checkbox) ->
+                checkbox.selectedProperty().addListener((observable, oldValue, newValue) -> addOrRemoveFileRelationshipToPackage(relationshipType, newValue)));
         chkExcludeFile.selectedProperty().addListener((observable, oldValue, newValue) -> handleChkExcludeFileChange(newValue));
 
         //Package relationship controls
@@ -264,7 +285,7 @@ public class PackageEditor {
                 .map(fileType -> StringableWrapper.wrap(fileType, SpdxLogic::toString)) //Wrap so that the nice toString function gets used by the checkbox
                 .collect(Collectors.toList()));
         chkListFileTypes.getCheckModel().getCheckedItems().addListener(this::handleFileTypeCheckedOrUnchecked);
-        filesTable.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> handleFileSelected(newValue));
+        filesTable.getSelectionModel().getSelectedItems().addListener((ListChangeListener<TreeItem<SpdxFile>>) change -> handleFilesSelected());
         filesTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         filesTable.setShowRoot(false);
 
@@ -284,7 +305,7 @@ public class PackageEditor {
      * @param relatablePackages Packages to which the edited package may optionally have defined relationships
      * @param parentWindow      The parent window.
      */
-    public static void editPackage(final SpdxPackage pkg, final List<SpdxPackage> relatablePackages, SpdxDocumentContainer documentContainer, Window parentWindow) {
+    public static void editPackage(final SpdxPackage pkg, final List<PackageHandle> relatablePackages, SpdxDocumentContainer documentContainer, Window parentWindow) {
 
         final PackageEditor packageEditor = new PackageEditor(pkg, relatablePackages, documentContainer);
         final Stage dialogStage = new Stage();
@@ -306,19 +327,15 @@ public class PackageEditor {
             dialogStage.setOnShown(event ->
             {
                 try {
-                    final SpdxFile dummyfile = new SpdxFile(pkg.getName(), null, null, null, null, null, null, null, null, null, null, null, null);
-                    TreeItem<SpdxFile> root = new TreeItem<>(dummyfile);
-                    packageEditor.filesTable.setRoot(root);
                     //Assume a package without is external
                     //TODO: replace with external packages or whatever alternate mechanism in 2.1
                     packageEditor.btnAddFile.setDisable(pkg.getFiles().length == 0);
-                    root.getChildren().setAll(Stream.of(pkg.getFiles())
-                            .sorted(Comparator.comparing(file -> StringUtils.lowerCase(file.getName()))) //Sort by file name
-                            .map(TreeItem<SpdxFile>::new)
-                            .collect(Collectors.toList()));
+                    packageEditor.btnRescan.setDisable(pkg.getFiles().length == 0);
+                    packageEditor.btnFileRules.setDisable(pkg.getFiles().length == 0);
                 } catch (InvalidSPDXAnalysisException e) {
                     logger.error("Unable to get files for package " + pkg.getName(), e);
                 }
+                packageEditor.refreshFileList();
 
                 packageEditor.tabFiles.setExpanded(true);
 
@@ -334,68 +351,81 @@ public class PackageEditor {
         }
     }
 
-    private PackageEditor(SpdxPackage pkg, List<SpdxPackage> relatablePackages, SpdxDocumentContainer documentContainer) {
+    //Populates the file list with the package's files
+    private void refreshFileList() {
+        try {
+            final SpdxFile dummyfile = new SpdxFile(pkg.getName(), null, null, null, null, null, null, null, null, null, null, null, null);
+            TreeItem<SpdxFile> root = new TreeItem<>(dummyfile);
+            filesTable.setRoot(root);
+            root.getChildren().setAll(Stream.of(pkg.getFiles())
+                    .sorted(Comparator.comparing(file -> StringUtils.lowerCase(file.getName()))) //Sort by file name
+                    .map(TreeItem<SpdxFile>::new)
+                    .collect(Collectors.toList()));
+        } catch (InvalidSPDXAnalysisException e) {
+            logger.error("Unable to get files for package " + pkg.getName(), e);
+        }
+    }
+
+    private PackageEditor(SpdxPackage pkg, List<PackageHandle> relatablePackages, SpdxDocumentContainer documentContainer) {
         this.pkg = pkg;
         this.otherPackages = relatablePackages;
         this.documentContainer = documentContainer;
     }
 
-    //Load the values for the file in all file editing contorls
-    private void handleFileSelected(TreeItem<SpdxFile> newSelection) {
-        btnDeleteFileFromPackage.setDisable(newSelection == null);
-        if (newSelection == null) {
-            currentFile = null;
-        } else {
-            //Set currentFile to null to make sure we don't accidentally edit the previous file
-            currentFile = null;
-            //Set the file type checkbox values to reflect this file's types
-            chkListFileTypes.getCheckModel().clearChecks();
-
-            //If multiple selections, then disable everything but the delete button
-            boolean multipleSelections = filesTable.getSelectionModel().getSelectedItems().size() > 1;
-            chkListFileTypes.setDisable(multipleSelections);
-            //Disable/enable usage checkboxes for multiple selection
-            Stream.of(chkExcludeFile, chkBuildTool, chkMetafile, chkOptionalComponent, chkDocumentation, chkTestCase, chkDataFile).forEach(checkbox -> checkbox.setDisable(multipleSelections));
-            if (multipleSelections) return;
-
-
-            //The element lookup by index seems to be broken on the CheckListView control,
-            //so we'll have to provide the indices
-
-            chkListFileTypes.getItems().forEach(item -> {
-                if (ArrayUtils.contains(newSelection.getValue().getFileTypes(), item.getValue()))
-                    chkListFileTypes.getCheckModel().check(item);
-                else chkListFileTypes.getCheckModel().clearCheck(item);
-            });
-
-
-            //Reset the relationship checkboxes
-            chkDataFile.setSelected(SpdxLogic.findRelationship(newSelection.getValue(), RelationshipType.DATA_FILE_OF, pkg).isPresent());
-            chkTestCase.setSelected(SpdxLogic.findRelationship(newSelection.getValue(), RelationshipType.TEST_CASE_OF, pkg).isPresent());
-            chkDocumentation.setSelected(SpdxLogic.findRelationship(newSelection.getValue(), RelationshipType.DOCUMENTATION_OF, pkg).isPresent());
-            chkMetafile.setSelected(SpdxLogic.findRelationship(newSelection.getValue(), RelationshipType.METAFILE_OF, pkg).isPresent());
-            chkOptionalComponent.setSelected(SpdxLogic.findRelationship(newSelection.getValue(), RelationshipType.OPTIONAL_COMPONENT_OF, pkg).isPresent());
-            chkBuildTool.setSelected(SpdxLogic.findRelationship(newSelection.getValue(), RelationshipType.BUILD_TOOL_OF, pkg).isPresent());
-
-            chkExcludeFile.setSelected(SpdxLogic.isFileExcludedFromVerification(pkg, newSelection.getValue()));
-
-            //Set the file relationship checkboxes
-            Relationship[] relationships = newSelection.getValue().getRelationships();
-
-            currentFile = newSelection.getValue();
+    //Load the values for the selected files in all file editing controls
+    private void handleFilesSelected() {
+        List<SpdxFile> selection = filesTable.getSelectionModel().getSelectedItems().stream()
+                .filter(Objects::nonNull)
+                .map(TreeItem::getValue)
+                .collect(Collectors.toList());
+        btnDeleteFileFromPackage.setDisable(selection.isEmpty());
+        //Clear the selected files to make sure we don't accidentally edit the previous ones while resetting the controls
+        currentFile = null;
+        selectedFiles = ImmutableList.of();
+        if (selection.isEmpty()) return;
+
+        //Exclusion, copyright and license are edited one file at a time
+        boolean multipleSelections = selection.size() > 1;
+        Stream.of(chkExcludeFile, btnCopyright, btnFileLicense).forEach(control -> control.setDisable(multipleSelections));
+
+        //A file type is checked if all the selected files have it.
+        //The element lookup by index seems to be broken on the CheckListView control,
+        //so we'll have to provide the indices
+        checkedFileTypes = EnumSet.noneOf(FileType.class);
+        chkListFileTypes.getItems().forEach(item -> {
+            if (selection.stream().allMatch(file -> ArrayUtils.contains(file.getFileTypes(), item.getValue()))) {
+                chkListFileTypes.getCheckModel().check(item);
+                checkedFileTypes.add(item.getValue());
+            } else chkListFileTypes.getCheckModel().clearCheck(item);
+        });
+
+        //Reset the relationship checkboxes, showing the relationships only some of the files have as indeterminate
+        fileRelationshipCheckboxes.forEach((relationshipType, checkbox) -> {
+            long count = selection.stream()
+                    .filter(file -> SpdxLogic.hasRelationship(documentContainer, file, relationshipType, pkg))
+                    .count();
+            checkbox.setSelected(count == selection.size());
+            checkbox.setIndeterminate(count > 0 && count < selection.size());
+        });
+
+        if (!multipleSelections) {
+            chkExcludeFile.setSelected(SpdxLogic.isFileExcludedFromVerification(pkg, selection.get(0)));
+            currentFile = selection.get(0);
         }
+        selectedFiles = selection;
     }
 
     private void handleFileTypeCheckedOrUnchecked(ListChangeListener.Change<? extends StringableWrapper<FileType>> change) {
-        if (currentFile == null) return;
-        FileType[] newFileTypes = change.getList().stream()
-                .map(wrappedType -> wrappedType.getValue()) //Unwrap the stringable wrapper
-                .toArray(size -> new FileType[size]); //Get array
-        try {
-            currentFile.setFileTypes(newFileTypes);
-        } catch (InvalidSPDXAnalysisException e) {
-            logger.error("Unable to update types of file " + currentFile.getName());
+        if (selectedFiles.isEmpty()) return;
+        Set<FileType> newFileTypes = EnumSet.noneOf(FileType.class);
+        change.getList().forEach(wrappedType -> newFileTypes.add(wrappedType.getValue()));
+        //Only the types that were checked or unchecked are changed, so a multiple selection keeps the types the files don't share
+        for (FileType fileType : FileType.values()) {
+            if (newFileTypes.contains(fileType) != checkedFileTypes.contains(fileType)) {
+                SpdxLogic.setFileType(documentContainer, selectedFiles, fileType, newFileTypes.contains(fileType));
+            }
         }
+        checkedFileTypes = newFileTypes;
     }
 
     public void handleDeleteFileFromPackageClick(MouseEvent event) {
@@ -407,34 +437,114 @@ public class PackageEditor {
 
     }
 
-    public void handleAddFileClick(MouseEvent event) {
+    public void handleAddFileClick(ActionEvent event) {
         FileChooser chooser = new FileChooser();
-        chooser.setTitle("Add file");
-        File file = chooser.showOpenDialog(btnAddFile.getParent().getScene().getWindow());
-        if (file == null) //Dialog cancelled.
+        chooser.setTitle("Add files");
+        List<File> files = chooser.showOpenMultipleDialog(btnAddFile.getParent().getScene().getWindow());
+        if (files == null || files.isEmpty()) //Dialog cancelled.
             return;
-        Path path = Paths.get(file.getAbsolutePath());
-        SpdxLogic.addFileToPackage(pkg, path, file.toURI().toString());
+        List<Path> paths = files.stream().map(file -> Paths.get(file.getAbsolutePath())).collect(Collectors.toList());
+        //All files in a multiple selection share a directory
+        Optional<Path> root = getPackageRoot(paths.get(0).getParent());
+        if (!root.isPresent()) return;
+        addFilesToList(SpdxLogic.addFilesToPackage(documentContainer, pkg, paths, root.get().toUri().toString()));
+    }
+
+    public void handleAddFolderClick(ActionEvent event) {
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Add folder");
+        File directory = chooser.showDialog(btnAddFile.getParent().getScene().getWindow());
+        if (directory == null) //Dialog cancelled.
+            return;
+        Path path = Paths.get(directory.getAbsolutePath());
+        Optional<Path> root = getPackageRoot(path);
+        if (!root.isPresent()) return;
+        //Hidden files are added only if the package was scanned with them, as in a rescan
+        addFilesToList(SpdxLogic.addDirectoryToPackage(documentContainer, pkg, path, root.get().toUri().toString(), !SpdxLogic.hasHiddenFiles(pkg)));
+    }
+
+    /**
+     * The directory the package's file names are relative to, so that added files are named as a rescan would
+     * name them. Found from the package's existing files if possible, otherwise asked for.
+     *
+     * @param path Where the files to add are.
+     */
+    private Optional<Path> getPackageRoot(Path path) {
+        Optional<Path> found = SpdxLogic.findPackageRoot(pkg, path);
+        if (found.isPresent()) return found;
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Select the directory the package's files are named relative to");
+        chooser.setInitialDirectory(path.toFile());
+        File directory = chooser.showDialog(btnAddFile.getParent().getScene().getWindow());
+        if (directory == null) //Dialog cancelled.
+            return Optional.empty();
+        Path root = Paths.get(directory.getAbsolutePath());
+        if (!path.startsWith(root)) {
+            new Alert(Alert.AlertType.ERROR, "The files to add must be in " + root + ".", ButtonType.OK).showAndWait();
+            return Optional.empty();
+        }
+        return Optional.of(root);
+    }
+
+    private void addFilesToList(List<SpdxFile> addedFiles) {
+        filesTable.getRoot().getChildren().addAll(addedFiles.stream()
+                .sorted(Comparator.comparing(file -> StringUtils.lowerCase(file.getName())))
+                .map(TreeItem<SpdxFile>::new)
+                .collect(Collectors.toList()));
+    }
+
+    public void handleBtnRescanClick(MouseEvent event) {
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Select the directory the package was created from");
+        File directory = chooser.showDialog(btnRescan.getScene().getWindow());
+        if (directory == null) //Dialog cancelled.
+            return;
+        //Hidden files are kept only if the package was scanned with them
+        RescanSummary summary = SpdxLogic.rescanPackage(documentContainer, pkg, Paths.get(directory.getAbsolutePath()), !SpdxLogic.hasHiddenFiles(pkg));
+        filesTable.getSelectionModel().clearSelection();
+        refreshFileList();
+        Alert alert = new Alert(Alert.AlertType.INFORMATION, "Files " + summary.toString() + ".", ButtonType.OK);
+        alert.setTitle(Main.APP_TITLE);
+        alert.setHeaderText(summary.hasChanges() ? "Package files updated." : "Package files are up to date.");
+        alert.showAndWait();
     }
 
     private void addOrRemoveFileRelationshipToPackage(RelationshipType relationshipType, boolean shouldExist) {
-        if (currentFile != null) {
-            SpdxLogic.setFileRelationshipToPackage(currentFile, pkg, relationshipType, shouldExist);
+        if (!selectedFiles.isEmpty()) {
+            SpdxLogic.setRelationships(documentContainer, selectedFiles, relationshipType, pkg, shouldExist);
+        }
+    }
+
+    public void handleBtnFileRulesClick(MouseEvent event) {
+        Dialog<String> dialog = UiUtils.newDialog("File Relationship Rules", ButtonType.OK, ButtonType.CANCEL);
+        dialog.setHeaderText("Give the files matching each pattern a relationship to the package, one rule per line.");
+        TextArea rulesText = new TextArea(Joiner.on('\n').join(
+                "**/test/** = " + RelationshipType.TEST_CASE_OF.name(),
+                "**/*.md = " + RelationshipType.DOCUMENTATION_OF.name()));
+        rulesText.setPrefRowCount(10);
+        dialog.getDialogPane().setContent(rulesText);
+        dialog.setResultConverter(buttonType -> buttonType == ButtonType.OK ? rulesText.getText() : null);
+        Optional<String> result = dialog.showAndWait();
+        if (!result.isPresent()) return;
+        try {
+            int added = SpdxLogic.applyFileRelationshipRules(documentContainer, pkg, FileRelationshipRule.parse(result.get()));
+            handleFilesSelected();
+            Alert alert = new Alert(Alert.AlertType.INFORMATION, "Added " + added + " file relationships.", ButtonType.OK);
+            alert.setTitle(Main.APP_TITLE);
+            alert.showAndWait();
+        } catch (IllegalArgumentException e) {
+            new Alert(Alert.AlertType.ERROR, e.getMessage(), ButtonType.OK).showAndWait();
         }
     }
 
     public void handleBtnAddRelationshipClick(MouseEvent event) {
         assert (lstTargetPackages.getSelectionModel().getSelectedItems().size() > 0);
         assert (chcNewRelationshipType.getSelectionModel().getSelectedIndex() >= 0);
-        SpdxPackage targetPackage = lstTargetPackages.getSelectionModel().getSelectedItem();
+        SpdxPackage targetPackage = lstTargetPackages.getSelectionModel().getSelectedItem().getPackage();
         RelationshipType relationshipType = chcNewRelationshipType.getSelectionModel().getSelectedItem();
         //TODO: remove existing relationship types from dropdown
-        try {
-            pkg.addRelationship(new Relationship(targetPackage, relationshipType, null));
+        if (SpdxLogic.addRelationship(documentContainer, pkg, relationshipType, targetPackage)) {
             lstPackageRelationships.getItems().add(StringableWrapper.wrap(relationshipType, SpdxLogic::toString));
-        } catch (InvalidSPDXAnalysisException e) {
-            logger.error("Unable to add package relationship", e);
-            new Alert(Alert.AlertType.ERROR, "Unable to add relationship").showAndWait();
         }
     }
 
@@ -443,15 +553,14 @@ public class PackageEditor {
         assert (lstPackageRelationships.getSelectionModel().getSelectedItems().size() > 0);
         StringableWrapper<RelationshipType> wrappedRelationshipType = lstPackageRelationships.getSelectionModel().getSelectedItem();
         lstPackageRelationships.getItems().remove(wrappedRelationshipType);
-        SpdxLogic.removeRelationship(pkg, wrappedRelationshipType.getValue(), lstTargetPackages.getSelectionModel().getSelectedItem());
+        SpdxLogic.removeRelationship(documentContainer, pkg, wrappedRelationshipType.getValue(), lstTargetPackages.getSelectionModel().getSelectedItem().getPackage());
 
     }
 
-    private void handleTargetPackageSelected(SpdxPackage pkg) {
+    private void handleTargetPackageSelected(PackageHandle pkg) {
         //Get the relationships the edited package has to the selected target package.
-        List<StringableWrapper<RelationshipType>> relationshipTypes = Arrays.stream(this.pkg.getRelationships())
-                .filter(relationship -> Objects.equals(relationship.getRelatedSpdxElement(), pkg))
-                .map(Relationship::getRelationshipType)
+        List<StringableWrapper<RelationshipType>> relationshipTypes = RelationshipIndex.forDocument(documentContainer)
+                .getTypes(this.pkg.getNode(), pkg == null ? null : pkg.getNode()).stream()
                 .map(relationshipType -> StringableWrapper.wrap(relationshipType, SpdxLogic::toString))
                 .collect(Collectors.toList());
         lstPackageRelationships.getItems().setAll(relationshipTypes);
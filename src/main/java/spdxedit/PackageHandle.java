@@ -0,0 +1,71 @@
+package spdxedit;
+
+import org.apache.jena.graph.Node;
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
+import org.spdx.rdfparser.SpdxDocumentContainer;
+import org.spdx.rdfparser.model.SpdxPackage;
+
+import java.util.Objects;
+
+/**
+ * A package of a document, by its node, with its name for display. The {@link SpdxPackage} itself is built
+ * the first time it's needed, and kept.
+ */
+public final class PackageHandle {
+
+    private final SpdxDocumentContainer container;
+    private final Node node;
+    private final String name;
+    private SpdxPackage pkg;
+
+    PackageHandle(SpdxDocumentContainer container, Node node, String name) {
+        this.container = container;
+        this.node = node;
+        this.name = name;
+    }
+
+    PackageHandle(SpdxDocumentContainer container, SpdxPackage pkg) {
+        this(container, pkg.getNode(), pkg.getName());
+        this.pkg = pkg;
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    /**
+     * The package's name, current if the package has been built (and possibly renamed) since.
+     */
+    public synchronized String getName() {
+        return pkg != null ? pkg.getName() : name;
+    }
+
+    public synchronized SpdxPackage getPackage() {
+        if (pkg == null) {
+            try {
+                pkg = new SpdxPackage(container, node);
+            } catch (InvalidSPDXAnalysisException e) {
+                throw new RuntimeException("Unable to read package " + name, e);
+            }
+        }
+        return pkg;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PackageHandle that = (PackageHandle) o;
+        return container == that.container && node.equals(that.node);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(System.identityHashCode(container), node);
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,94 @@
+package spdxedit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MapMaker;
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.ResIterator;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.vocabulary.RDF;
+import org.spdx.rdfparser.SpdxDocumentContainer;
+import org.spdx.rdfparser.SpdxRdfConstants;
+import org.spdx.rdfparser.model.SpdxPackage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The packages of a document, as {@link PackageHandle}s, found once per document and kept up to date as
+ * packages are added through {@link SpdxLogic#addPackageToDocument}.
+ * <p>
+ * Finding the packages only reads their nodes and names from the model; the {@link SpdxPackage}s, which take
+ * parsing all their properties to construct, are only built when they're asked for.
+ */
+public final class PackageIndex {
+
+    //Keyed by container identity. The handles refer back to the container, so the weak key alone never lets go of
+    //an index: it's dropped by documentClosed.
+    private static final Map<SpdxDocumentContainer, PackageIndex> indexes = new MapMaker().weakKeys().makeMap();
+
+    private final SpdxDocumentContainer container;
+    private final Map<Node, PackageHandle> packages = new LinkedHashMap<>();
+
+    private PackageIndex(SpdxDocumentContainer container) {
+        this.container = container;
+        Model model = container.getModel();
+        Property name = model.createProperty(SpdxRdfConstants.SPDX_NAMESPACE, SpdxRdfConstants.PROP_NAME);
+        ResIterator resources = model.listResourcesWithProperty(RDF.type, model.createResource(SpdxRdfConstants.SPDX_NAMESPACE + SpdxRdfConstants.CLASS_SPDX_PACKAGE));
+        try {
+            while (resources.hasNext()) {
+                Resource resource = resources.nextResource();
+                Statement nameStatement = resource.getProperty(name);
+                packages.put(resource.asNode(), new PackageHandle(container, resource.asNode(), nameStatement == null ? null : nameStatement.getString()));
+            }
+        } finally {
+            resources.close();
+        }
+    }
+
+    /**
+     * Gets the index of the document's packages, finding them if this is the first time it's requested.
+     */
+    public static synchronized PackageIndex forDocument(SpdxDocumentContainer container) {
+        return indexes.computeIfAbsent(container, PackageIndex::new);
+    }
+
+    /**
+     * Adds a package just added to the document to its index, if the index has been built yet.
+     */
+    static synchronized void packageAdded(SpdxDocumentContainer container, SpdxPackage pkg) {
+        PackageIndex index = indexes.get(container);
+        if (index != null) {
+            index.add(pkg);
+        }
+    }
+
+    /**
+     * Drops the index of a document that's no longer being edited, along with the packages built for it.
+     */
+    public static synchronized void documentClosed(SpdxDocumentContainer container) {
+        indexes.remove(container);
+    }
+
+    /**
+     * The document's packages, in the order they were found or added.
+     */
+    public synchronized List<PackageHandle> getPackages() {
+        return ImmutableList.copyOf(packages.values());
+    }
+
+    /**
+     * The handle of one of the document's packages.
+     */
+    public synchronized PackageHandle getHandle(SpdxPackage pkg) {
+        PackageHandle result = packages.get(pkg.getNode());
+        return result != null ? result : add(pkg);
+    }
+
+    private synchronized PackageHandle add(SpdxPackage pkg) {
+        return packages.computeIfAbsent(pkg.getNode(), node -> new PackageHandle(container, pkg));
+    }
+}
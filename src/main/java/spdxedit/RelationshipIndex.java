@@ -0,0 +1,151 @@
+package spdxedit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MapMaker;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.ResIterator;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.spdx.rdfparser.SpdxDocumentContainer;
+import org.spdx.rdfparser.SpdxRdfConstants;
+import org.spdx.rdfparser.model.Relationship.RelationshipType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The relationships in a document, by source, type and target, read once per document from the model and kept up to
+ * date as relationships are changed through {@link SpdxLogic}.
+ * <p>
+ * Looking a relationship up in {@link org.spdx.rdfparser.model.SpdxElement#getRelationships()} rereads all of the
+ * source's relationships from the model, and builds every target to compare it; here it's a hash lookup.
+ */
+public final class RelationshipIndex {
+
+    //Keyed by container identity, dropped with the document
+    private static final Map<SpdxDocumentContainer, RelationshipIndex> indexes = new MapMaker().weakKeys().makeMap();
+
+    private final Model model;
+    private final Property relationshipProperty;
+    private final Property typeProperty;
+    private final Property relatedElementProperty;
+    //Source node -> (type, target node) -> relationship node
+    private final Map<Node, Map<Target, Node>> relationships = new HashMap<>();
+
+    private RelationshipIndex(SpdxDocumentContainer container) {
+        this.model = container.getModel();
+        this.relationshipProperty = model.createProperty(SpdxRdfConstants.SPDX_NAMESPACE, SpdxRdfConstants.PROP_RELATIONSHIP);
+        this.typeProperty = model.createProperty(SpdxRdfConstants.SPDX_NAMESPACE, SpdxRdfConstants.PROP_RELATIONSHIP_TYPE);
+        this.relatedElementProperty = model.createProperty(SpdxRdfConstants.SPDX_NAMESPACE, SpdxRdfConstants.PROP_RELATED_SPDX_ELEMENT);
+        ResIterator sources = model.listSubjectsWithProperty(relationshipProperty);
+        try {
+            while (sources.hasNext()) {
+                read(sources.nextResource());
+            }
+        } finally {
+            sources.close();
+        }
+    }
+
+    /**
+     * Gets the index of the document's relationships, reading them if this is the first time it's requested.
+     */
+    public static synchronized RelationshipIndex forDocument(SpdxDocumentContainer container) {
+        return indexes.computeIfAbsent(container, RelationshipIndex::new);
+    }
+
+    /**
+     * Rereads the relationships of an element whose relationships were just changed, if the index has been built
+     * yet.
+     */
+    static synchronized void relationshipsChanged(SpdxDocumentContainer container, Node source) {
+        RelationshipIndex index = indexes.get(container);
+        if (index != null && source != null) {
+            index.read(index.model.getRDFNode(source).asResource());
+        }
+    }
+
+    /**
+     * Whether the source has a relationship of the type to the target.
+     */
+    public synchronized boolean contains(Node source, RelationshipType type, Node target) {
+        return find(source, type, target).isPresent();
+    }
+
+    /**
+     * The node of the source's relationship of the type to the target, if it has one. Should the source have more
+     * than one, this is the first.
+     */
+    public synchronized Optional<Node> find(Node source, RelationshipType type, Node target) {
+        if (source == null || target == null) return Optional.empty();
+        return Optional.ofNullable(relationships.getOrDefault(source, Collections.emptyMap()).get(new Target(type, target)));
+    }
+
+    /**
+     * The types of the relationships the source has to the target.
+     */
+    public synchronized List<RelationshipType> getTypes(Node source, Node target) {
+        if (source == null || target == null) return ImmutableList.of();
+        ImmutableList.Builder<RelationshipType> result = ImmutableList.builder();
+        relationships.getOrDefault(source, Collections.emptyMap()).keySet().stream()
+                .filter(key -> key.node.equals(target))
+                .forEach(key -> result.add(key.type));
+        return result.build();
+    }
+
+    private void read(Resource source) {
+        Map<Target, Node> targets = new HashMap<>();
+        StmtIterator statements = source.listProperties(relationshipProperty);
+        try {
+            while (statements.hasNext()) {
+                Statement statement = statements.nextStatement();
+                if (!statement.getObject().isResource()) continue;
+                Resource relationship = statement.getResource();
+                Statement type = relationship.getProperty(typeProperty);
+                Statement target = relationship.getProperty(relatedElementProperty);
+                if (type == null || target == null || !type.getObject().isURIResource()) continue;
+                RelationshipType relationshipType = RelationshipType.fromString(StringUtils.removeStart(type.getResource().getURI(), SpdxRdfConstants.SPDX_NAMESPACE));
+                if (relationshipType == null) continue;
+                targets.putIfAbsent(new Target(relationshipType, target.getObject().asNode()), relationship.asNode());
+            }
+        } finally {
+            statements.close();
+        }
+        if (targets.isEmpty()) {
+            relationships.remove(source.asNode());
+        } else {
+            relationships.put(source.asNode(), targets);
+        }
+    }
+
+    private static final class Target {
+        private final RelationshipType type;
+        private final Node node;
+
+        Target(RelationshipType type, Node node) {
+            this.type = type;
+            this.node = node;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Target target = (Target) o;
+            return type == target.type && node.equals(target.node);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, node);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package spdxedit;
+
+import com.google.common.collect.MapMaker;
+import org.spdx.rdfparser.SpdxDocumentContainer;
+import org.spdx.rdfparser.license.AnyLicenseInfo;
+import org.spdx.rdfparser.license.SpdxListedLicense;
+import org.spdx.rdfparser.license.SpdxNoAssertionLicense;
+import org.spdx.rdfparser.license.SpdxNoneLicense;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One instance per document of the licenses most files have: NOASSERTION, NONE and the listed licenses.
+ * <p>
+ * The container remembers every object written to each node and updates all of them on every write, so giving
+ * each of many files its own NOASSERTION costs time quadratic in the number of files, and memory besides. A shared
+ * instance is written to the model once; for every other file, only a reference to its node is.
+ */
+public final class SharedLicenses {
+
+    //Keyed by container identity. Licenses written to the document refer back to its container, so the weak key
+    //alone never lets go of an entry: it's dropped by documentClosed.
+    private static final Map<SpdxDocumentContainer, SharedLicenses> instances = new MapMaker().weakKeys().makeMap();
+
+    private final SpdxNoAssertionLicense noAssertion = new SpdxNoAssertionLicense();
+    private final SpdxNoneLicense none = new SpdxNoneLicense();
+    //By lower case license ID
+    private final Map<String, SpdxListedLicense> listedLicenses = new HashMap<>();
+
+    private SharedLicenses() {
+    }
+
+    public static synchronized SharedLicenses forDocument(SpdxDocumentContainer container) {
+        return instances.computeIfAbsent(container, key -> new SharedLicenses());
+    }
+
+    /**
+     * Drops the shared licenses of a document that's no longer being edited.
+     */
+    public static synchronized void documentClosed(SpdxDocumentContainer container) {
+        instances.remove(container);
+    }
+
+    public SpdxNoAssertionLicense getNoAssertion() {
+        return noAssertion;
+    }
+
+    public SpdxNoneLicense getNone() {
+        return none;
+    }
+
+    /**
+     * The document's shared instance of the license, if it's one of those that are shared; otherwise the license
+     * itself.
+     */
+    public synchronized AnyLicenseInfo intern(AnyLicenseInfo license) {
+        if (license instanceof SpdxNoAssertionLicense) return noAssertion;
+        if (license instanceof SpdxNoneLicense) return none;
+        if (license instanceof SpdxListedLicense && ((SpdxListedLicense) license).getLicenseId() != null) {
+            //A copy, as the listed license objects themselves are shared by all documents
+            return listedLicenses.computeIfAbsent(((SpdxListedLicense) license).getLicenseId().toLowerCase(),
+                    id -> (SpdxListedLicense) license.clone());
+        }
+        return license;
+    }
+
+    public AnyLicenseInfo[] intern(AnyLicenseInfo[] licenses) {
+        if (licenses == null) return null;
+        AnyLicenseInfo[] result = new AnyLicenseInfo[licenses.length];
+        for (int i = 0; i < licenses.length; ++i) {
+            result[i] = intern(licenses[i]);
+        }
+        return result;
+    }
+}
@@ -1,22 +1,19 @@
 package spdxedit;
 
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Lists;
-import com.google.common.net.MediaType;
-
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.text.WordUtils;
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Property;
-import org.apache.jena.rdf.model.ResIterator;
 import org.apache.jena.rdf.model.Resource;
-import org.apache.jena.rdf.model.impl.PropertyImpl;
+import org.apache.jena.vocabulary.RDF;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.spdx.rdfparser.InvalidSPDXAnalysisException;
 import org.spdx.rdfparser.SpdxDocumentContainer;
 import org.spdx.rdfparser.SpdxPackageVerificationCode;
+import org.spdx.rdfparser.SpdxRdfConstants;
 import org.spdx.rdfparser.license.AnyLicenseInfo;
 import org.spdx.rdfparser.license.ExtractedLicenseInfo;
 import org.spdx.rdfparser.license.SpdxNoAssertionLicense;
@@ -24,15 +21,22 @@ import org.spdx.rdfparser.model.*;
 import org.spdx.rdfparser.model.Relationship.RelationshipType;
 import org.spdx.rdfparser.model.SpdxFile.FileType;
 import org.spdx.rdfparser.referencetype.ReferenceType;
+import spdxedit.scan.ChecksumCache;
+import spdxedit.scan.FileChecksums;
+import spdxedit.scan.FileTypeClassifier;
+import spdxedit.scan.PackageScanner;
+import spdxedit.scan.RescanSummary;
+import spdxedit.scan.ScanProgress;
+import spdxedit.scan.ScannedFile;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class SpdxLogic {
@@ -60,6 +64,9 @@ public class SpdxLogic {
 		try {
 			pkg.addRelationship(new Relationship(document, RelationshipType.DESCRIBED_BY, null));
 			document.addRelationship(new Relationship(pkg, RelationshipType.DESCRIBES, null));
+			PackageIndex.packageAdded(document.getDocumentContainer(), pkg);
+			RelationshipIndex.relationshipsChanged(document.getDocumentContainer(), pkg.getNode());
+			RelationshipIndex.relationshipsChanged(document.getDocumentContainer(), document.getNode());
 		} catch (InvalidSPDXAnalysisException e) {
 			throw new RuntimeException("Unable to add package to document");
 
@@ -67,20 +74,11 @@ public class SpdxLogic {
 
 	}
 
+	/**
+	 * The document's packages, each built as the stream gets to it (and kept for later calls).
+	 */
 	public static Stream<SpdxPackage> getSpdxPackagesInDocument(SpdxDocument document) {
-        final Property rdfType = new PropertyImpl("http://www.w3.org/1999/02/22-rdf-syntax-ns#", "type");
-        final String packageTypeUri = "http://spdx.org/rdf/terms#Package";
-        ResIterator resIterator = document.getDocumentContainer().getModel().listResourcesWithProperty(rdfType, document.getDocumentContainer().getModel().getResource(packageTypeUri));
-        List<SpdxPackage> result = new LinkedList<SpdxPackage>();
-        try {
-            while (resIterator.hasNext()) {
-                Resource resource = resIterator.nextResource();
-                result.add(new SpdxPackage(document.getDocumentContainer(), resource.asNode()));
-            }
-            return result.stream();
-        } catch (InvalidSPDXAnalysisException e) {
-            throw new RuntimeException(e);
-        }
+		return PackageIndex.forDocument(document.getDocumentContainer()).getPackages().stream().map(PackageHandle::getPackage);
 	}
 
 	public static SpdxDocument createDocumentWithPackages(Iterable<SpdxPackage> packages) {
@@ -101,7 +99,8 @@ public class SpdxLogic {
 
 	/**
 	 * Creates a new package with the specified license, name, comment, and root
-	 * path.
+	 * path. Packages may be created concurrently for the same document: only
+	 * adding the finished package to the document is serialized.
 	 *
 	 * @param pkgRootPath
 	 *            The path from which the files will be included into the
@@ -116,142 +115,447 @@ public class SpdxLogic {
 	public static SpdxPackage createSpdxPackageForPath(Optional<Path> pkgRootPath, SpdxDocument containingDocument, AnyLicenseInfo declaredLicense,
 			String name, String downloadLocation, final boolean omitHiddenFiles) {
 		Objects.requireNonNull(pkgRootPath);
+		try {
+			SpdxPackage pkg = scanSpdxPackage(pkgRootPath, declaredLicense, name, downloadLocation, omitHiddenFiles, ScanProgress.NONE);
+			if (pkgRootPath.isPresent()) {
+				addScannedPackageToDocument(containingDocument, pkg, pkgRootPath);
+			}
+			return pkg;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Creates a new package like
+	 * {@link #createSpdxPackageForPath(Optional, SpdxDocument, AnyLicenseInfo, String, String, boolean)},
+	 * without adding it to any document. Nothing but the new package is
+	 * touched, so this can run on any thread.
+	 *
+	 * @param progress
+	 *            Receives the progress of scanning the package's files.
+	 * @throws java.io.InterruptedIOException
+	 *             If the thread was interrupted while scanning.
+	 */
+	public static SpdxPackage scanSpdxPackage(Optional<Path> pkgRootPath, AnyLicenseInfo declaredLicense, String name,
+			String downloadLocation, boolean omitHiddenFiles, ScanProgress progress) throws IOException {
+		Objects.requireNonNull(pkgRootPath);
 		try {
 
 			SpdxPackage pkg = new SpdxPackage(name, declaredLicense,
 					new AnyLicenseInfo[] {} /* Licences from files */,
 					null /* Declared licenses */, declaredLicense, downloadLocation, new SpdxFile[] {} /* Files */,
 					new SpdxPackageVerificationCode(null, new String[] {}));
-			pkg.setLicenseInfosFromFiles(new AnyLicenseInfo[] { new SpdxNoAssertionLicense() });
+			//One for the package and all its files; replaced by the document's own when added to one
+			SpdxNoAssertionLicense noAssertion = new SpdxNoAssertionLicense();
+			pkg.setLicenseInfosFromFiles(new AnyLicenseInfo[] { noAssertion });
 			pkg.setCopyrightText("NOASSERTION");
 
 			if (pkgRootPath.isPresent()) {
 				// Add files in path
-
-				List<SpdxFile> addedFiles = new LinkedList<>();
-				String baseUri = pkgRootPath.get().toUri().toString();
-				FileVisitor<Path> fileVisitor = new FileVisitor<Path>() {
-					@Override
-					public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-						if (omitHiddenFiles && dir.getFileName().toString().startsWith(".")) {
-							return FileVisitResult.SKIP_SUBTREE;
-						} else
-							return FileVisitResult.CONTINUE;
-					}
-
-					@Override
-					public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-						// Skip if omitHidden is set and this file is hidden.
-						if (omitHiddenFiles && (file.getFileName().toString().startsWith(".") || Files.isHidden(file)))
-							return FileVisitResult.CONTINUE;
-						try {
-							SpdxFile addedFile = newSpdxFile(file, baseUri);
-							addedFiles.add(addedFile);
-						} catch (InvalidSPDXAnalysisException e) {
-							throw new RuntimeException(e);
-						}
-						return FileVisitResult.CONTINUE;
-					}
-
-					@Override
-					public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-						logger.error("Unable to add file ", file.toAbsolutePath().toString());
-						return FileVisitResult.CONTINUE;
-					}
-
-					@Override
-					public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-						return FileVisitResult.CONTINUE;
-					}
-				};
-				Files.walkFileTree(pkgRootPath.get(), fileVisitor);
+				List<ScannedFile> scannedFiles = new ArrayList<>();
+				new PackageScanner(pkgRootPath.get(), omitHiddenFiles).scan(scannedFiles::add, progress);
+				List<SpdxFile> addedFiles = new ArrayList<>(scannedFiles.size());
+				for (ScannedFile scannedFile : scannedFiles) {
+					addedFiles.add(newSpdxFile(scannedFile, noAssertion));
+				}
 				SpdxFile[] files = addedFiles.stream().toArray(size -> new SpdxFile[size]);
 				pkg.setFiles(files);
-				String prefix = StringUtils.removeAll(pkgRootPath.get().getFileName().toString(), " ");
-				containingDocument.getDocumentContainer().getModel().getNsPrefixMap().put(prefix, baseUri);
 				recomputeVerificationCode(pkg);
-				addPackageToDocument(containingDocument, pkg);
 			} else {
 				//External package
 				pkg.setFilesAnalyzed(false);
 				pkg.setPackageVerificationCode(null);
 			}
 			return pkg;
-		} catch (InvalidSPDXAnalysisException | IOException e) {
+		} catch (InvalidSPDXAnalysisException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	public static SpdxFile addFileToPackage(SpdxPackage pkg, Path newFilePath, String baseUri) {
+	/**
+	 * Adds a package made by
+	 * {@link #scanSpdxPackage(Optional, AnyLicenseInfo, String, String, boolean, ScanProgress)}
+	 * to the document, in one step, along with a namespace prefix for its
+	 * files. The package and its files are given the document's
+	 * {@link SharedLicenses}.
+	 *
+	 * @param pkgRootPath
+	 *            The path the package was scanned from, if any.
+	 */
+	public static void addScannedPackageToDocument(SpdxDocument document, SpdxPackage pkg, Optional<Path> pkgRootPath) {
+		addScannedPackageToDocument(document, pkg, pkgRootPath, false);
+	}
+
+	/**
+	 * Adds a scanned package to the document like
+	 * {@link #addScannedPackageToDocument(SpdxDocument, SpdxPackage, Optional)}.
+	 *
+	 * @param shareIdenticalFiles
+	 *            Whether the package's files should share what they can
+	 *            with the files of identical content; see
+	 *            {@link #shareIdenticalFileContent(SpdxDocumentContainer, SpdxFile[])}.
+	 * @return The number of files given the licenses of a reviewed copy.
+	 */
+	public static int addScannedPackageToDocument(SpdxDocument document, SpdxPackage pkg, Optional<Path> pkgRootPath, boolean shareIdenticalFiles) {
+		//The document's model isn't thread-safe.
+		synchronized (document.getDocumentContainer()) {
+			int reviewed = 0;
+			if (shareIdenticalFiles) {
+				try {
+					reviewed = shareIdenticalFileContent(document.getDocumentContainer(), pkg.getFiles());
+				} catch (InvalidSPDXAnalysisException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			useSharedLicenses(SharedLicenses.forDocument(document.getDocumentContainer()), pkg);
+			if (pkgRootPath.isPresent()) {
+				String prefix = StringUtils.removeAll(pkgRootPath.get().getFileName().toString(), " ");
+				document.getDocumentContainer().getModel().getNsPrefixMap().put(prefix, pkgRootPath.get().toUri().toString());
+			}
+			addPackageToDocument(document, pkg);
+			return reviewed;
+		}
+	}
+
+	/**
+	 * Makes new files share what they can with the other files of the same
+	 * content: the new files with equal digests get the same
+	 * {@link Checksum} objects, so each is written to the model only once,
+	 * and new files identical to a file already in the document that has
+	 * been reviewed - i.e. whose concluded license isn't NOASSERTION - get
+	 * its concluded license, license information and copyright text.
+	 *
+	 * @param files
+	 *            Files not yet in the document's model.
+	 * @return The number of files given the licenses of a reviewed copy.
+	 */
+	public static int shareIdenticalFileContent(SpdxDocumentContainer container, SpdxFile[] files) throws InvalidSPDXAnalysisException {
+		Map<String, Checksum> checksums = new HashMap<>();
+		//Read once per content, so that all its copies share the license objects too
+		Map<String, Optional<ReviewedCopy>> reviewedCopies = new HashMap<>();
+		int result = 0;
+		for (SpdxFile file : files) {
+			file.setChecksums(Arrays.stream(file.getChecksums())
+					.map(checksum -> checksums.computeIfAbsent(checksum.getAlgorithm() + ":" + checksum.getValue().toLowerCase(), key -> checksum))
+					.toArray(size -> new Checksum[size]));
+			String sha1 = file.getSha1().toLowerCase();
+			if (sha1.isEmpty()) continue;
+			Optional<ReviewedCopy> reviewed = reviewedCopies.get(sha1);
+			if (reviewed == null) {
+				reviewed = findReviewedCopy(container, sha1).map(ReviewedCopy::new);
+				reviewedCopies.put(sha1, reviewed);
+			}
+			if (reviewed.isPresent()) {
+				file.setLicenseConcluded(reviewed.get().licenseConcluded);
+				file.setLicenseInfosFromFiles(reviewed.get().licenseInfoFromFiles);
+				file.setCopyrightText(reviewed.get().copyrightText);
+				++result;
+			}
+		}
+		return result;
+	}
+
+	private static Optional<SpdxFile> findReviewedCopy(SpdxDocumentContainer container, String sha1) throws InvalidSPDXAnalysisException {
+		Model model = container.getModel();
+		Property checksumValue = model.createProperty(SpdxRdfConstants.SPDX_NAMESPACE, SpdxRdfConstants.PROP_CHECKSUM_VALUE);
+		Property algorithm = model.createProperty(SpdxRdfConstants.SPDX_NAMESPACE, SpdxRdfConstants.PROP_CHECKSUM_ALGORITHM);
+		Property checksumProperty = model.createProperty(SpdxRdfConstants.SPDX_NAMESPACE, SpdxRdfConstants.PROP_FILE_CHECKSUM);
+		Resource sha1Algorithm = model.createResource(SpdxRdfConstants.SPDX_NAMESPACE + SpdxRdfConstants.PROP_CHECKSUM_ALGORITHM_SHA1);
+		Resource fileType = model.createResource(SpdxRdfConstants.SPDX_NAMESPACE + SpdxRdfConstants.CLASS_SPDX_FILE);
+		//Digests are written in lower case, but may have been read otherwise
+		for (String value : new LinkedHashSet<>(Arrays.asList(sha1, sha1.toUpperCase()))) {
+			for (Resource checksum : model.listSubjectsWithProperty(checksumValue, value).toList()) {
+				if (!checksum.hasProperty(algorithm, sha1Algorithm)) continue;
+				for (Resource copy : model.listSubjectsWithProperty(checksumProperty, checksum).toList()) {
+					if (!copy.hasProperty(RDF.type, fileType)) continue;
+					SpdxFile file = new SpdxFile(container, copy.asNode());
+					if (file.getLicenseConcluded() != null && !(file.getLicenseConcluded() instanceof SpdxNoAssertionLicense)) {
+						return Optional.of(file);
+					}
+				}
+			}
+		}
+		return Optional.empty();
+	}
+
+	private static final class ReviewedCopy {
+		private final AnyLicenseInfo licenseConcluded;
+		private final AnyLicenseInfo[] licenseInfoFromFiles;
+		private final String copyrightText;
+
+		ReviewedCopy(SpdxFile file) {
+			this.licenseConcluded = file.getLicenseConcluded();
+			this.licenseInfoFromFiles = file.getLicenseInfoFromFiles();
+			this.copyrightText = file.getCopyrightText();
+		}
+	}
+
+	/**
+	 * Replaces the NOASSERTION, NONE and listed licenses of a package not
+	 * yet in the document, and of its files, with the document's shared
+	 * instances.
+	 */
+	private static void useSharedLicenses(SharedLicenses licenses, SpdxPackage pkg) {
 		try {
-			SpdxFile newFile = SpdxLogic.newSpdxFile(newFilePath, baseUri);
-			SpdxFile[] newFiles = ArrayUtils.add(pkg.getFiles(), newFile);
-			pkg.setFiles(newFiles);
-			pkg.setFilesAnalyzed(true);
-			recomputeVerificationCode(pkg);
-			return newFile;
-		} catch (IOException | InvalidSPDXAnalysisException e) {
+			pkg.setLicenseConcluded(licenses.intern(pkg.getLicenseConcluded()));
+			pkg.setLicenseDeclared(licenses.intern(pkg.getLicenseDeclared()));
+			pkg.setLicenseInfosFromFiles(licenses.intern(pkg.getLicenseInfoFromFiles()));
+			for (SpdxFile file : pkg.getFiles()) {
+				file.setLicenseConcluded(licenses.intern(file.getLicenseConcluded()));
+				file.setLicenseInfosFromFiles(licenses.intern(file.getLicenseInfoFromFiles()));
+			}
+		} catch (InvalidSPDXAnalysisException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	private static SpdxFile newSpdxFile(Path file, String baseUri) throws IOException, InvalidSPDXAnalysisException {
-		String checksum = getChecksumForFile(file);
-		FileType[] fileTypes = SpdxLogic.getTypesForFile(file);
-		String relativeFileUrl = StringUtils.removeStart(file.toUri().toString(), baseUri);
-		return new SpdxFile(relativeFileUrl, fileTypes, checksum, new SpdxNoAssertionLicense(),
-				new AnyLicenseInfo[] { new SpdxNoAssertionLicense() }, null, "NOASSERTION", null, null);
-	}
-
-	// TODO: Make/find a more exhaustive list
-	private static final Set<String> sourceFileExtensions = ImmutableSet.of("c", "cpp", "java", "h", "cs", "cxx",
-			"asmx", "mm", "m", "php", "groovy", "ruby", "py");
-	private static final Set<String> binaryFileExtensions = ImmutableSet.of("class", "exe", "dll", "obj", "o", "jar",
-			"bin");
-	private static final Set<String> textFileExtensions = ImmutableSet.of("txt", "text");
-	private static final Set<String> archiveFileExtensions = ImmutableSet.of("tar", "gz", "jar", "zip", "7z", "arj");
-
-	// TODO: Add remaining types
-	public static FileType[] getTypesForFile(Path path) {
-		String extension = StringUtils.lowerCase(StringUtils.substringAfterLast(path.getFileName().toString(), "."));
-		ArrayList<FileType> fileTypes = new ArrayList<>();
-		if (sourceFileExtensions.contains(extension)) {
-			fileTypes.add(SpdxFile.FileType.fileType_source);
-		}
-		if (binaryFileExtensions.contains(extension)) {
-			fileTypes.add(FileType.fileType_binary);
+	/**
+	 * Adds a file to a package that isn't in a document. The files of a
+	 * document's packages are given its shared licenses by
+	 * {@link #addFilesToPackage(SpdxDocumentContainer, SpdxPackage, List, String)}.
+	 */
+	public static SpdxFile addFileToPackage(SpdxPackage pkg, Path newFilePath, String baseUri) {
+		try {
+			return addScannedFilesToPackage(pkg, PackageScanner.scanFiles(Collections.singletonList(newFilePath), baseUri),
+					new SpdxNoAssertionLicense()).get(0);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		}
-		if (textFileExtensions.contains(extension)) {
-			fileTypes.add(FileType.fileType_text);
+	}
+
+	/**
+	 * Adds many files to a package at once. The files are hashed in parallel, and the package's file
+	 * list and verification code are each updated only once.
+	 *
+	 * @param container
+	 *            The document the package is in.
+	 * @param pkg
+	 * @param newFilePaths
+	 * @param baseUri
+	 *            The URI relative to which the names of the new files are computed.
+	 * @return The added files, in the order of the provided paths.
+	 */
+	public static List<SpdxFile> addFilesToPackage(SpdxDocumentContainer container, SpdxPackage pkg, List<Path> newFilePaths, String baseUri) {
+		try {
+			return addScannedFilesToPackage(pkg, PackageScanner.scanFiles(newFilePaths, baseUri),
+					SharedLicenses.forDocument(container).getNoAssertion());
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		}
-		if (archiveFileExtensions.contains(extension)) {
-			fileTypes.add(FileType.fileType_archive);
+	}
+
+	/**
+	 * Adds all the files in a directory and its subdirectories to a package.
+	 *
+	 * @param container
+	 *            The document the package is in.
+	 * @param pkg
+	 * @param directory
+	 * @param baseUri
+	 *            The URI relative to which the names of the new files are computed.
+	 * @param omitHiddenFiles
+	 * @return The added files.
+	 */
+	public static List<SpdxFile> addDirectoryToPackage(SpdxDocumentContainer container, SpdxPackage pkg, Path directory, String baseUri, boolean omitHiddenFiles) {
+		try {
+			return addScannedFilesToPackage(pkg, new PackageScanner(directory, baseUri, omitHiddenFiles).scan(),
+					SharedLicenses.forDocument(container).getNoAssertion());
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		}
-		if ("spdx".equals(extension)) {
-			fileTypes.add(FileType.fileType_spdx);
+	}
+
+	private static List<SpdxFile> addScannedFilesToPackage(SpdxPackage pkg, List<ScannedFile> scannedFiles, SpdxNoAssertionLicense noAssertion) {
+		try {
+			List<SpdxFile> addedFiles = new ArrayList<>(scannedFiles.size());
+			for (ScannedFile scannedFile : scannedFiles) {
+				addedFiles.add(newSpdxFile(scannedFile, noAssertion));
+			}
+			if (addedFiles.isEmpty()) {
+				return addedFiles;
+			}
+			VerificationCodeAccumulator accumulator = getVerificationCodeAccumulator(pkg);
+			SpdxFile[] existingFiles = pkg.getFiles();
+			SpdxFile[] newFiles = Arrays.copyOf(existingFiles, existingFiles.length + addedFiles.size());
+			for (int i = 0; i < addedFiles.size(); ++i) {
+				newFiles[existingFiles.length + i] = addedFiles.get(i);
+			}
+			pkg.setFiles(newFiles);
+			pkg.setFilesAnalyzed(true);
+			ensureVerificationCode(pkg);
+			for (SpdxFile file : addedFiles) {
+				accumulator.addFile(file.getName(), file.getSha1());
+			}
+			recomputeVerificationCode(pkg);
+			return addedFiles;
+		} catch (InvalidSPDXAnalysisException e) {
+			throw new RuntimeException(e);
 		}
+	}
+
+	/**
+	 * Brings the files of an existing package up to date with the directory it was created from.
+	 * Files are matched by name: files no longer present are removed, new files are added and files whose
+	 * SHA-1 has changed get new checksums. Everything else about the existing files (licenses, types,
+	 * relationships, copyright) is left untouched.
+	 *
+	 * @param container
+	 *            The document the package is in.
+	 * @param pkg
+	 * @param pkgRootPath
+	 *            The directory the package's file names are relative to.
+	 * @param omitHiddenFiles
+	 * @return What was changed.
+	 */
+	public static RescanSummary rescanPackage(SpdxDocumentContainer container, SpdxPackage pkg, Path pkgRootPath, boolean omitHiddenFiles) {
 		try {
-			String mimeType = Files.probeContentType(path);
-			if (StringUtils.startsWith(mimeType, MediaType.ANY_AUDIO_TYPE.type())) {
-				fileTypes.add(FileType.fileType_audio);
+			VerificationCodeAccumulator accumulator = getVerificationCodeAccumulator(pkg);
+			Map<String, SpdxFile> existingFiles = new HashMap<>();
+			for (SpdxFile file : pkg.getFiles()) {
+				existingFiles.put(file.getName(), file);
+			}
+			List<SpdxFile> keptFiles = new ArrayList<>();
+			List<SpdxFile> addedFiles = new ArrayList<>();
+			int changed = 0;
+			SpdxNoAssertionLicense noAssertion = SharedLicenses.forDocument(container).getNoAssertion();
+			for (ScannedFile scannedFile : new PackageScanner(pkgRootPath, omitHiddenFiles).scan()) {
+				SpdxFile existing = existingFiles.remove(scannedFile.getName());
+				if (existing == null) {
+					SpdxFile added = newSpdxFile(scannedFile, noAssertion);
+					addedFiles.add(added);
+					accumulator.addFile(added.getName(), added.getSha1());
+					continue;
+				}
+				String previousSha1 = existing.getSha1();
+				if (!StringUtils.equalsIgnoreCase(previousSha1, scannedFile.getSha1())) {
+					existing.setChecksums(scannedFile.getChecksums().toSpdxChecksums());
+					accumulator.updateFile(existing.getName(), previousSha1, scannedFile.getSha1());
+					++changed;
+				}
+				keptFiles.add(existing);
+			}
+			for (SpdxFile removed : existingFiles.values()) {
+				accumulator.removeFile(removed.getName(), removed.getSha1());
 			}
-			if (StringUtils.startsWith(mimeType, MediaType.ANY_IMAGE_TYPE.type())) {
-				fileTypes.add(FileType.fileType_image);
+			RescanSummary summary = new RescanSummary(addedFiles.size(), existingFiles.size(), changed, keptFiles.size() - changed);
+			if (summary.getAdded() > 0 || summary.getRemoved() > 0) {
+				keptFiles.addAll(addedFiles);
+				pkg.setFiles(keptFiles.toArray(new SpdxFile[keptFiles.size()]));
 			}
-			if (StringUtils.startsWith(mimeType, MediaType.ANY_APPLICATION_TYPE.type())) {
-				fileTypes.add(FileType.fileType_application);
+			if (keptFiles.isEmpty()) {
+				pkg.setFilesAnalyzed(false);
+				pkg.setPackageVerificationCode(null);
+				VerificationCodeAccumulator.verificationCodeChanged();
+			} else if (summary.hasChanges()) {
+				pkg.setFilesAnalyzed(true);
+				ensureVerificationCode(pkg);
+				recomputeVerificationCode(pkg);
 			}
+			return summary;
+		} catch (IOException | InvalidSPDXAnalysisException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Whether any of the package's files is hidden, or in a hidden
+	 * directory, going by its name. A package that has such files was
+	 * scanned without omitting hidden files, so rescanning it shouldn't omit
+	 * them either.
+	 */
+	public static boolean hasHiddenFiles(SpdxPackage pkg) {
+		try {
+			return Stream.of(pkg.getFiles())
+					.map(SpdxFile::getName)
+					.filter(Objects::nonNull)
+					.flatMap(name -> Stream.of(StringUtils.split(name, '/')))
+					.anyMatch(segment -> segment.startsWith(".") && !".".equals(segment) && !"..".equals(segment));
+		} catch (InvalidSPDXAnalysisException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Finds the directory the package's file names are relative to, going by
+	 * where its existing files are: the path itself or its closest ancestor
+	 * under which a file of the package exists. Files added from within the
+	 * path should be named relative to it, as a rescan would name them.
+	 *
+	 * @return The directory, or empty if the package has no files or none of
+	 *         them could be found.
+	 */
+	public static Optional<Path> findPackageRoot(SpdxPackage pkg, Path path) {
+		try {
+			//A few are enough to tell
+			List<String> names = Stream.of(pkg.getFiles())
+					.map(SpdxFile::getName)
+					.filter(StringUtils::isNotBlank)
+					.limit(100)
+					.collect(Collectors.toList());
+			for (Path candidate = path; candidate != null; candidate = candidate.getParent()) {
+				Path root = candidate;
+				if (names.stream().anyMatch(name -> isFileUnder(root, name))) {
+					return Optional.of(root);
+				}
+			}
+			return Optional.empty();
+		} catch (InvalidSPDXAnalysisException e) {
+			throw new RuntimeException(e);
+		}
+	}
 
+	private static boolean isFileUnder(Path directory, String name) {
+		try {
+			return Files.isRegularFile(directory.resolve(name));
+		} catch (InvalidPathException e) {
+			//Named on another platform
+			return false;
+		}
+	}
+
+	private static SpdxFile newSpdxFile(Path file, String baseUri) throws IOException, InvalidSPDXAnalysisException {
+		return newSpdxFile(PackageScanner.scanFile(file, baseUri));
+	}
+
+	public static SpdxFile newSpdxFile(ScannedFile scannedFile) throws InvalidSPDXAnalysisException {
+		return newSpdxFile(scannedFile, new SpdxNoAssertionLicense());
+	}
+
+	/**
+	 * @param noAssertion
+	 *            The file's concluded license and license information.
+	 *            Files made at once should share one instance: every
+	 *            instance written to a document is remembered by it.
+	 */
+	public static SpdxFile newSpdxFile(ScannedFile scannedFile, SpdxNoAssertionLicense noAssertion) throws InvalidSPDXAnalysisException {
+		return new SpdxFile(scannedFile.getName(), null, new Annotation[0], new Relationship[0], noAssertion,
+				new AnyLicenseInfo[] { noAssertion }, "NOASSERTION", null, scannedFile.getFileTypes(),
+				scannedFile.getChecksums().toSpdxChecksums(), new String[0], "", null);
+	}
+
+	/**
+	 * Classifies a file by its name and its first bytes; see {@link FileTypeClassifier}.
+	 */
+	public static FileType[] getTypesForFile(Path path) {
+		try {
+			return FileTypeClassifier.getDefault().classify(path);
 		} catch (IOException ioe) {
 			logger.warn("Unable to access file " + path.toString() + " to determine its type.", ioe);
+			return FileTypeClassifier.getDefault().classify(path.getFileName().toString(), ByteBuffer.allocate(0));
 		}
-		return fileTypes.toArray(new FileType[] {});
 	}
 
 	public static String getChecksumForFile(Path path) throws IOException {
-		try (InputStream is = Files.newInputStream(path, StandardOpenOption.READ)) {
-			return DigestUtils.shaHex(is);
-		}
+		return getChecksumsForFile(path).getSha1();
+	}
+
+	/**
+	 * Computes the SHA-1, SHA-256 and MD5 checksums of a file in a single pass over its content,
+	 * or looks them up in the checksum cache if the file hasn't changed since it was last hashed.
+	 */
+	public static FileChecksums getChecksumsForFile(Path path) throws IOException {
+		return ChecksumCache.getDefault().getChecksums(path);
 	}
 
 	public static String toString(FileType fileType) {
@@ -285,19 +589,35 @@ public class SpdxLogic {
 
 	}
 
-	public static void removeRelationship(SpdxElement source, RelationshipType relationshipType, SpdxElement target) {
-		try {
-			Objects.requireNonNull(target);
-			Relationship[] newRelationships = Arrays.stream(source.getRelationships())
-					// Filter out the relationship to remove
-					.filter(relationship -> relationship.getRelationshipType() != relationshipType
-							&& !Objects.equals(relationship.getRelatedSpdxElement(), target))
-					.toArray(size -> new Relationship[size]);
-			source.setRelationships(newRelationships);
-		} catch (InvalidSPDXAnalysisException e) {
-			throw new RuntimeException("Illegal SPDX", e); // Never should
-															// happen
-		}
+	/**
+	 * Whether the source element has a relationship of the specified type to
+	 * the target, looked up in the document's {@link RelationshipIndex}.
+	 */
+	public static boolean hasRelationship(SpdxDocumentContainer container, SpdxElement source,
+			RelationshipType relationshipType, SpdxElement target) {
+		Objects.requireNonNull(target);
+		return RelationshipIndex.forDocument(container).contains(source.getNode(), relationshipType, target.getNode());
+	}
+
+	/**
+	 * Adds a relationship of the specified type from the source element to the
+	 * target, unless there already is one.
+	 *
+	 * @return Whether the relationship was added.
+	 */
+	public static boolean addRelationship(SpdxDocumentContainer container, SpdxElement source,
+			RelationshipType relationshipType, SpdxElement target) {
+		return setRelationships(container, Collections.singletonList(source), relationshipType, target, true) > 0;
+	}
+
+	/**
+	 * Removes the relationship of the specified type from the source element
+	 * to the target, if there is one. The source's other relationships to the
+	 * target, and of the type to other elements, are kept.
+	 */
+	public static void removeRelationship(SpdxDocumentContainer container, SpdxElement source,
+			RelationshipType relationshipType, SpdxElement target) {
+		setRelationships(container, Collections.singletonList(source), relationshipType, target, false);
 	}
 
 	/**
@@ -311,40 +631,131 @@ public class SpdxLogic {
 	 *            Whether or not the file should have the specified relationship
 	 *            to the package.
 	 */
-	public static void setFileRelationshipToPackage(SpdxFile file, SpdxPackage pkg, RelationshipType relationshipType,
-			boolean shouldExist) {
-		// Assuming no practical usecase requiring enforcement of atomicity
-		Optional<Relationship> existingRelationship = findRelationship(file, relationshipType, pkg);
-		try {
+	public static void setFileRelationshipToPackage(SpdxDocumentContainer container, SpdxFile file, SpdxPackage pkg,
+			RelationshipType relationshipType, boolean shouldExist) {
+		setRelationships(container, Collections.singletonList(file), relationshipType, pkg, shouldExist);
+	}
 
-			if (shouldExist && !existingRelationship.isPresent()) { // Create
-																	// the
-																	// relationship
-																	// if empty.
-				ArrayList<Relationship> newRelationships = new ArrayList<>(file.getRelationships().length + 1);
-				Arrays.stream(file.getRelationships()).forEach(relationship -> newRelationships.add(relationship));
-				newRelationships.add(new Relationship(pkg, relationshipType, null));
-				file.setRelationships(newRelationships.toArray(new Relationship[] {}));
+	/**
+	 * Updates whether or not each of the source elements has the specified
+	 * relationship to the target. Only the sources whose relationship actually
+	 * changes are touched: each gains or loses the one relationship, and the
+	 * rest of its relationships are left as they are in the model.
+	 *
+	 * @param shouldExist
+	 *            Whether or not the sources should have the specified
+	 *            relationship to the target.
+	 * @return How many of the sources were changed.
+	 */
+	public static int setRelationships(SpdxDocumentContainer container, Collection<? extends SpdxElement> sources,
+			RelationshipType relationshipType, SpdxElement target, boolean shouldExist) {
+		Objects.requireNonNull(target);
+		RelationshipIndex index = RelationshipIndex.forDocument(container);
+		int changed = 0;
+		//The document's model isn't thread-safe.
+		synchronized (container) {
+			try {
+				for (SpdxElement source : sources) {
+					Optional<Node> existing = index.find(source.getNode(), relationshipType, target.getNode());
+					if (existing.isPresent() == shouldExist)
+						continue;
+					if (shouldExist) {
+						source.addRelationship(new Relationship(target, relationshipType, null));
+					} else {
+						Relationship[] newRelationships = Arrays.stream(source.getRelationships())
+								.filter(relationship -> !Objects.equals(relationship.getNode(), existing.get()))
+								.toArray(size -> new Relationship[size]);
+						source.setRelationships(newRelationships);
+						// Don't leave the relationship itself behind, unless something else still refers to it.
+						Resource removed = container.getModel().getRDFNode(existing.get()).asResource();
+						if (!container.getModel().contains(null, null, removed)) {
+							container.getModel().removeAll(removed, null, null);
+						}
+					}
+					RelationshipIndex.relationshipsChanged(container, source.getNode());
+					++changed;
+				}
+			} catch (InvalidSPDXAnalysisException e) {
+				throw new RuntimeException(e);
 			}
-			if (!shouldExist && existingRelationship.isPresent()) {
-				ArrayList<Relationship> newRelationships = Lists.newArrayList(file.getRelationships());
-				boolean removed = newRelationships.remove(existingRelationship);
-				assert (removed);
-				file.setRelationships(newRelationships.toArray(new Relationship[] {}));
+		}
+		return changed;
+	}
+
+	/**
+	 * Gives each of the package's files whose name matches a rule the rule's
+	 * relationship to the package. The names are matched against each rule in
+	 * parallel, then the rule's relationships are added with
+	 * {@link #setRelationships(SpdxDocumentContainer, Collection, RelationshipType, SpdxElement, boolean)}.
+	 *
+	 * @return How many relationships were added.
+	 */
+	public static int applyFileRelationshipRules(SpdxDocumentContainer container, SpdxPackage pkg,
+			List<FileRelationshipRule> rules) {
+		try {
+			SpdxFile[] files = pkg.getFiles();
+			// Read here, as the model may only be readable from this thread
+			String[] names = Arrays.stream(files).map(SpdxFile::getName).toArray(size -> new String[size]);
+			int added = 0;
+			for (FileRelationshipRule rule : rules) {
+				List<SpdxFile> matchingFiles = IntStream.range(0, files.length).parallel()
+						.filter(i -> rule.matches(names[i]))
+						.mapToObj(i -> files[i])
+						.collect(Collectors.toList());
+				added += setRelationships(container, matchingFiles, rule.getRelationshipType(), pkg, true);
 			}
+			return added;
 		} catch (InvalidSPDXAnalysisException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	/**
+	 * Adds the file type to, or removes it from, each of the files. Only the
+	 * files whose types actually change are touched.
+	 *
+	 * @param shouldHave
+	 *            Whether or not the files should have the type.
+	 * @return How many of the files were changed.
+	 */
+	public static int setFileType(SpdxDocumentContainer container, Collection<SpdxFile> files, FileType fileType,
+			boolean shouldHave) {
+		int changed = 0;
+		//The document's model isn't thread-safe.
+		synchronized (container) {
+			try {
+				for (SpdxFile file : files) {
+					FileType[] fileTypes = file.getFileTypes();
+					if (ArrayUtils.contains(fileTypes, fileType) == shouldHave)
+						continue;
+					file.setFileTypes(shouldHave ? ArrayUtils.add(fileTypes, fileType) : ArrayUtils.removeElement(fileTypes, fileType));
+					++changed;
+				}
+			} catch (InvalidSPDXAnalysisException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		return changed;
+	}
+
 	public static void removeFilesFromPackage(SpdxPackage pkg, List<SpdxFile> filesToRemove) {
 		try {
-			SpdxFile[] newFiles = Arrays.stream(pkg.getFiles())
-					.filter(currentFile -> !filesToRemove.contains(currentFile)).toArray(size -> new SpdxFile[size]);
+			VerificationCodeAccumulator accumulator = getVerificationCodeAccumulator(pkg);
+			Set<SpdxFile> removedFiles = new HashSet<>(filesToRemove);
+			List<SpdxFile> keptFiles = new ArrayList<>();
+			for (SpdxFile currentFile : pkg.getFiles()) {
+				if (!removedFiles.contains(currentFile)) {
+					keptFiles.add(currentFile);
+				} else {
+					accumulator.removeFile(currentFile.getName(), currentFile.getSha1());
+				}
+			}
+			SpdxFile[] newFiles = keptFiles.toArray(new SpdxFile[keptFiles.size()]);
 			pkg.setFiles(newFiles);
 			if (newFiles.length == 0) {
 				pkg.setFilesAnalyzed(false);
 				pkg.setPackageVerificationCode(null);
+				VerificationCodeAccumulator.verificationCodeChanged();
 			} else {
 				recomputeVerificationCode(pkg);
 			}
@@ -369,41 +780,65 @@ public class SpdxLogic {
 		}
 	}
 
+	//Packages without files (e.g. remote ones) have no verification code to update.
+	private static void ensureVerificationCode(SpdxPackage pkg) throws InvalidSPDXAnalysisException {
+		if (pkg.getPackageVerificationCode() == null) {
+			pkg.setPackageVerificationCode(new SpdxPackageVerificationCode(null, new String[] {}));
+		}
+	}
+
 	private static Checksum getSha1Checksum(SpdxFile file) {
 		return Arrays.stream(file.getChecksums())
 				.filter(checksum -> checksum.getAlgorithm() == Checksum.ChecksumAlgorithm.checksumAlgorithm_sha1)
 				.findFirst().get(); // Every file must have a sha
 	}
 
+	/**
+	 * Computes the package's verification code from scratch, from the SHA-1s of its files that aren't excluded.
+	 */
 	public static String computePackageVerificationCode(SpdxPackage pkg) {
-		try {
-			String combinedSha1s = Arrays.stream(pkg.getFiles())
-					.filter(spdxFile -> !ArrayUtils.contains(
-							getVerificationCodeHandlingException(pkg).getExcludedFileNames(), spdxFile.getName())) // Filter
-																													// out
-																													// excluded
-																													// files
-					.map(SpdxLogic::getSha1Checksum) // Get sha1 checksum for
-														// each file
-					.map(Checksum::getValue) // Get the string value of the
-												// checksum
-					.sorted() // Sort them
-					.collect(Collectors.joining()) // Combine them into a single
-													// string
-			;
-			assert (!"".equals(combinedSha1s));
-
-			String result = DigestUtils.shaHex(combinedSha1s);
-			return result;
+		return buildVerificationCodeAccumulator(pkg).computeValue();
+	}
 
+	/**
+	 * Updates the package's verification code. The SHA-1s of the package's files are tracked incrementally
+	 * as files are added, removed, rescanned or excluded through this class, so this doesn't revisit every file.
+	 */
+	public static void recomputeVerificationCode(SpdxPackage pkg) {
+		try {
+			VerificationCodeAccumulator accumulator = getVerificationCodeAccumulator(pkg);
+			String value = accumulator.computeValue();
+			pkg.getPackageVerificationCode().setValue(value);
+			accumulator.packageValueChanged(value);
 		} catch (InvalidSPDXAnalysisException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	public static void recomputeVerificationCode(SpdxPackage pkg) {
+	//Must be called before the package's files are changed, so that the changes can be applied to it as deltas.
+	private static VerificationCodeAccumulator getVerificationCodeAccumulator(SpdxPackage pkg) {
+		return VerificationCodeAccumulator.forPackage(pkg, () -> buildVerificationCodeAccumulator(pkg),
+				accumulator -> isInStep(pkg, accumulator));
+	}
+
+	//Reads only the verification code from the model, not the files
+	private static boolean isInStep(SpdxPackage pkg, VerificationCodeAccumulator accumulator) {
+		SpdxPackageVerificationCode verificationCode = getVerificationCodeHandlingException(pkg);
+		return verificationCode == null ? accumulator.isInStepWith(null, new String[0])
+				: accumulator.isInStepWith(verificationCode.getValue(), verificationCode.getExcludedFileNames());
+	}
+
+	private static VerificationCodeAccumulator buildVerificationCodeAccumulator(SpdxPackage pkg) {
 		try {
-			pkg.getPackageVerificationCode().setValue(computePackageVerificationCode(pkg));
+			SpdxPackageVerificationCode verificationCode = getVerificationCodeHandlingException(pkg);
+			//Excluded names are read from the model once, rather than once for every file.
+			VerificationCodeAccumulator result = new VerificationCodeAccumulator(verificationCode == null
+					? Collections.emptyList() : Arrays.asList(verificationCode.getExcludedFileNames()));
+			for (SpdxFile file : pkg.getFiles()) {
+				result.addFile(file.getName(), getSha1Checksum(file).getValue());
+			}
+			result.setPackageValue(verificationCode == null ? null : verificationCode.getValue());
+			return result;
 		} catch (InvalidSPDXAnalysisException e) {
 			throw new RuntimeException(e);
 		}
@@ -411,8 +846,9 @@ public class SpdxLogic {
 
 	public static void excludeFileFromVerification(SpdxPackage pkg, SpdxFile file) {
 		try {
-			if (!ArrayUtils.contains(pkg.getPackageVerificationCode().getExcludedFileNames(), file.getName()))
+			if (getVerificationCodeAccumulator(pkg).exclude(file.getName(), file.getSha1())) {
 				pkg.getPackageVerificationCode().addExcludedFileName(file.getName());
+			}
 			recomputeVerificationCode(pkg);
 		} catch (InvalidSPDXAnalysisException e) {
 			throw new RuntimeException(e);
@@ -421,7 +857,12 @@ public class SpdxLogic {
 
 	public static void unexcludeFileFromVerification(SpdxPackage pkg, SpdxFile file) {
 		try {
-			ArrayUtils.removeElement(pkg.getPackageVerificationCode().getExcludedFileNames(), file.getName());
+			VerificationCodeAccumulator accumulator = getVerificationCodeAccumulator(pkg);
+			if (accumulator.unexclude(file.getName(), file.getSha1())) {
+				//Only this name is removed; the others keep their order in the model
+				SpdxPackageVerificationCode verificationCode = pkg.getPackageVerificationCode();
+				verificationCode.setExcludedFileNames(ArrayUtils.removeElement(verificationCode.getExcludedFileNames(), file.getName()));
+			}
 			recomputeVerificationCode(pkg);
 		} catch (InvalidSPDXAnalysisException e) {
 			throw new RuntimeException(e);
@@ -429,11 +870,7 @@ public class SpdxLogic {
 	}
 
 	public static boolean isFileExcludedFromVerification(SpdxPackage pkg, SpdxFile file) {
-		try {
-			return ArrayUtils.contains(pkg.getPackageVerificationCode().getExcludedFileNames(), file.getName());
-		} catch (InvalidSPDXAnalysisException e) {
-			throw new RuntimeException(e);
-		}
+		return getVerificationCodeAccumulator(pkg).isExcluded(file.getName());
 	}
 
 	/**
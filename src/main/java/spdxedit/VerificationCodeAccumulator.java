@@ -0,0 +1,225 @@
+package spdxedit;
+
+import com.google.common.collect.MapMaker;
+import org.apache.commons.codec.binary.Hex;
+import org.spdx.rdfparser.model.SpdxPackage;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Maintains the inputs of a package's verification code: the names of the files excluded from verification,
+ * and the sorted multiset of the SHA-1 digests of all other files.
+ * <p>
+ * Adding or removing a digest is O(log n), and the verification code is produced by streaming the sorted
+ * digests into a SHA-1 digest, without building the concatenated string.
+ * The accumulator of a package is only kept up to date by changes to the package's files and exclusions that go
+ * through {@link SpdxLogic}; it is rebuilt whenever the package's verification code or excluded names in the model
+ * no longer match it, such as after changes made through another instance of the package. That is only checked
+ * again after {@link SpdxLogic} has changed the verification code of some package, so lookups between changes
+ * don't read the model. Standalone accumulators can be used to compute the verification code of files
+ * that aren't kept in a package.
+ */
+public final class VerificationCodeAccumulator {
+
+    //Keyed by package instance identity - packages not yet added to a model have no stable equals/hashCode.
+    private static final Map<SpdxPackage, VerificationCodeAccumulator> accumulators = new MapMaker().weakKeys().makeMap();
+    //Counts the changes made to the verification code of any package
+    private static final AtomicLong changeCount = new AtomicLong();
+
+    private final TreeMap<Sha1Digest, Integer> digests = new TreeMap<>();
+    private final Set<String> excludedFileNames;
+    //The verification code the package had when this was last in step with it
+    private String packageValue;
+    //The change count when this was last known to be in step with its package
+    private volatile long checkedAt = changeCount.get();
+
+    public VerificationCodeAccumulator(Collection<String> excludedFileNames) {
+        this.excludedFileNames = new HashSet<>(excludedFileNames);
+    }
+
+    /**
+     * Gets the accumulator for the package, building it from the package's files if this is the first time it's
+     * requested, or if the one built before is no longer in step with the package. Whether it is in step is only
+     * tested if a verification code was changed since it was last tested.
+     */
+    static VerificationCodeAccumulator forPackage(SpdxPackage pkg, Supplier<VerificationCodeAccumulator> builder,
+                                                  Predicate<VerificationCodeAccumulator> isInStep) {
+        VerificationCodeAccumulator result = accumulators.computeIfAbsent(pkg, key -> builder.get());
+        long changes = changeCount.get();
+        if (result.checkedAt != changes) {
+            if (!isInStep.test(result)) {
+                result = builder.get();
+                accumulators.put(pkg, result);
+            }
+            result.checkedAt = changes;
+        }
+        return result;
+    }
+
+    /**
+     * Records that the verification code of some package was changed in the model, so that every accumulator
+     * is tested against its package again.
+     */
+    static void verificationCodeChanged() {
+        changeCount.incrementAndGet();
+    }
+
+    /**
+     * Whether the package's verification code and excluded names, as currently in the model, are those this was
+     * built from or last computed.
+     */
+    boolean isInStepWith(String value, String[] excludedFileNames) {
+        return Objects.equals(packageValue, value) && this.excludedFileNames.size() == excludedFileNames.length
+                && this.excludedFileNames.containsAll(Arrays.asList(excludedFileNames));
+    }
+
+    /**
+     * Records the verification code the package was built with.
+     */
+    void setPackageValue(String packageValue) {
+        this.packageValue = packageValue;
+    }
+
+    /**
+     * Records the verification code the package was just given. The accumulators of other instances of the
+     * package are tested again, but this one is known to be in step.
+     */
+    void packageValueChanged(String packageValue) {
+        this.packageValue = packageValue;
+        checkedAt = changeCount.incrementAndGet();
+    }
+
+    public void addFile(String name, String sha1) {
+        if (!isExcluded(name)) add(sha1);
+    }
+
+    void removeFile(String name, String sha1) {
+        if (!isExcluded(name)) remove(sha1);
+    }
+
+    void updateFile(String name, String previousSha1, String sha1) {
+        removeFile(name, previousSha1);
+        addFile(name, sha1);
+    }
+
+    boolean isExcluded(String name) {
+        return excludedFileNames.contains(name);
+    }
+
+    /**
+     * @return true if the file wasn't excluded before.
+     */
+    boolean exclude(String name, String sha1) {
+        if (!excludedFileNames.add(name)) return false;
+        remove(sha1);
+        return true;
+    }
+
+    /**
+     * @return true if the file was excluded before.
+     */
+    boolean unexclude(String name, String sha1) {
+        if (!excludedFileNames.remove(name)) return false;
+        add(sha1);
+        return true;
+    }
+
+    private void add(String sha1) {
+        digests.merge(Sha1Digest.fromHex(sha1), 1, Integer::sum);
+    }
+
+    private void remove(String sha1) {
+        digests.computeIfPresent(Sha1Digest.fromHex(sha1), (digest, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Computes the verification code: the SHA-1 of the concatenation of the sorted lowercase hex SHA-1 values.
+     */
+    public String computeValue() {
+        MessageDigest sha1;
+        try {
+            sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e); //Never happens - SHA-1 is mandatory in every JRE
+        }
+        byte[] hex = new byte[40];
+        for (Map.Entry<Sha1Digest, Integer> entry : digests.entrySet()) {
+            entry.getKey().writeHex(hex);
+            for (int i = 0; i < entry.getValue(); ++i) {
+                sha1.update(hex);
+            }
+        }
+        return Hex.encodeHexString(sha1.digest());
+    }
+
+    /**
+     * A SHA-1 digest held as primitives. Ordered as unsigned bytes, which matches the order of the lowercase hex strings.
+     */
+    private static final class Sha1Digest implements Comparable<Sha1Digest> {
+        private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+
+        private final long high;
+        private final long middle;
+        private final int low;
+
+        private Sha1Digest(long high, long middle, int low) {
+            this.high = high;
+            this.middle = middle;
+            this.low = low;
+        }
+
+        static Sha1Digest fromHex(String hex) {
+            Objects.requireNonNull(hex);
+            if (hex.length() != 40) {
+                throw new IllegalArgumentException("Not a SHA-1 value: " + hex);
+            }
+            return new Sha1Digest(Long.parseUnsignedLong(hex.substring(0, 16), 16),
+                    Long.parseUnsignedLong(hex.substring(16, 32), 16),
+                    Integer.parseUnsignedInt(hex.substring(32, 40), 16));
+        }
+
+        void writeHex(byte[] target) {
+            writeHex(high, 16, target, 0);
+            writeHex(middle, 16, target, 16);
+            writeHex(low & 0xFFFFFFFFL, 8, target, 32);
+        }
+
+        private static void writeHex(long value, int digits, byte[] target, int offset) {
+            for (int i = digits - 1; i >= 0; --i) {
+                target[offset + i] = HEX_DIGITS[(int) (value & 0xF)];
+                value >>>= 4;
+            }
+        }
+
+        @Override
+        public int compareTo(Sha1Digest other) {
+            int result = Long.compareUnsigned(high, other.high);
+            if (result == 0) result = Long.compareUnsigned(middle, other.middle);
+            if (result == 0) result = Integer.compareUnsigned(low, other.low);
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Sha1Digest)) return false;
+            Sha1Digest other = (Sha1Digest) obj;
+            return high == other.high && middle == other.middle && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high) ^ Long.hashCode(middle) ^ low;
+        }
+    }
+}
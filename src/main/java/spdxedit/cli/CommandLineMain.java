@@ -0,0 +1,324 @@
+package spdxedit.cli;
+
+import org.apache.commons.cli.*;
+import org.apache.commons.lang3.StringUtils;
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
+import org.spdx.rdfparser.license.AnyLicenseInfo;
+import org.spdx.rdfparser.license.ListedLicenses;
+import org.spdx.rdfparser.license.SpdxNoAssertionLicense;
+import org.spdx.rdfparser.license.SpdxNoneLicense;
+import org.spdx.rdfparser.model.SpdxDocument;
+import org.spdx.rdfparser.model.SpdxPackage;
+import spdxedit.SpdxLogic;
+import spdxedit.io.BatchConverter;
+import spdxedit.io.Compression;
+import spdxedit.io.FileDataType;
+import spdxedit.io.StreamingNTriplesExport;
+import spdxedit.scan.PackageScanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Headless entry point: generates an SPDX document with one package per directory, or converts SPDX documents
+ * from one format to another, without the JavaFX UI.
+ * <p>
+ * Usage: {@code spdx-edit-cli -n <namespace> -o <output file> [-f <format>] [options] <directory>...}
+ * or {@code spdx-edit-cli --convert [-i <format>] -f <format> -o <output directory> [-t <threads>] <file>...}
+ * <p>
+ * Nothing reachable from this class may load JavaFX classes, so that it runs on machines without a display
+ * (or without JavaFX at all).
+ */
+public class CommandLineMain {
+
+    private static final int EXIT_FAILURE = 1;
+    private static final int EXIT_USAGE = 2;
+
+    private static final Options options = new Options()
+            .addOption(Option.builder("n").longOpt("namespace").hasArg().argName("uri")
+                    .desc("Namespace URI of the generated document").build())
+            .addOption(Option.builder("o").longOpt("output").hasArg().argName("file").required()
+                    .desc("File to write the document to (with --convert, the directory to write the documents to)").build())
+            .addOption(Option.builder("f").longOpt("format").hasArg().argName("format")
+                    .desc("Output format, one of " + Arrays.stream(FileDataType.values()).map(Enum::name).collect(Collectors.joining(", "))
+                            + " (default RDF_XML)").build())
+            .addOption(Option.builder("d").longOpt("document-name").hasArg().argName("name")
+                    .desc("Name of the document (default: the output file name)").build())
+            .addOption(Option.builder("l").longOpt("license").hasArg().argName("id")
+                    .desc("Declared license of the packages: a listed license ID, NONE or NOASSERTION (default)").build())
+            .addOption(Option.builder().longOpt("include-hidden")
+                    .desc("Include hidden files and directories").build())
+            .addOption(Option.builder().longOpt("stream")
+                    .desc("Stream the files to the output instead of building the document in memory (N_TRIPLES only)").build())
+            .addOption(Option.builder("t").longOpt("threads").hasArg().argName("count")
+                    .desc("Number of packages to generate, or documents to convert, concurrently (default: number of processors)").build())
+            .addOption(Option.builder().longOpt("convert")
+                    .desc("Convert the documents given as arguments to the output format instead of generating one").build())
+            .addOption(Option.builder("i").longOpt("input-format").hasArg().argName("format")
+                    .desc("Format of the documents to convert (default: recognized from each document's content)").build())
+            .addOption(Option.builder("h").longOpt("help").desc("Print this message").build());
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        //Use the license list bundled with the SPDX tools rather than fetch each license from spdx.org, unless told otherwise
+        if (System.getProperty("SPDXParser.OnlyUseLocalLicenses") == null) {
+            System.setProperty("SPDXParser.OnlyUseLocalLicenses", "true");
+        }
+        CommandLine commandLine;
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            return EXIT_USAGE;
+        }
+        if (commandLine.hasOption("help")) {
+            printUsage();
+            return 0;
+        }
+
+        Optional<FileDataType> format = parseFormat(commandLine.getOptionValue("format", FileDataType.RDF_XML.name()));
+        if (!format.isPresent()) {
+            System.err.println("Unknown format: " + commandLine.getOptionValue("format"));
+            return EXIT_USAGE;
+        }
+        int threads;
+        try {
+            threads = Integer.parseInt(commandLine.getOptionValue("threads", Integer.toString(Runtime.getRuntime().availableProcessors())));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid thread count: " + commandLine.getOptionValue("threads"));
+            return EXIT_USAGE;
+        }
+        if (commandLine.hasOption("convert")) {
+            return convertDocuments(commandLine, format.get(), Math.max(1, threads));
+        }
+
+        if (!commandLine.hasOption("namespace")) {
+            System.err.println("Missing required option: n");
+            printUsage();
+            return EXIT_USAGE;
+        }
+        String namespace = commandLine.getOptionValue("namespace");
+        if (!SpdxLogic.validateDocumentNamespace(namespace)) {
+            System.err.println("Invalid document namespace: " + namespace);
+            return EXIT_USAGE;
+        }
+        List<Path> directories = new ArrayList<>();
+        for (String arg : commandLine.getArgs()) {
+            Path directory = Paths.get(arg);
+            if (!Files.isDirectory(directory)) {
+                System.err.println("Not a directory: " + arg);
+                return EXIT_USAGE;
+            }
+            directories.add(directory);
+        }
+        if (directories.isEmpty()) {
+            System.err.println("No package directories specified");
+            printUsage();
+            return EXIT_USAGE;
+        }
+        AnyLicenseInfo declaredLicense;
+        try {
+            declaredLicense = parseLicense(commandLine.getOptionValue("license", "NOASSERTION"));
+        } catch (InvalidSPDXAnalysisException e) {
+            System.err.println("Unknown license: " + commandLine.getOptionValue("license"));
+            return EXIT_USAGE;
+        }
+
+        if (commandLine.hasOption("stream") && format.get() != FileDataType.N_TRIPLES) {
+            System.err.println("Only N_TRIPLES output can be streamed");
+            return EXIT_USAGE;
+        }
+
+        File output = new File(commandLine.getOptionValue("output"));
+        SpdxDocument document = SpdxLogic.createEmptyDocument(namespace);
+        document.setName(commandLine.getOptionValue("document-name", StringUtils.substringBeforeLast(output.getName(), ".")));
+        if (commandLine.hasOption("stream")) {
+            return streamPackages(output, document, directories, declaredLicense, !commandLine.hasOption("include-hidden"));
+        }
+        if (!createPackages(document, directories, declaredLicense, !commandLine.hasOption("include-hidden"), Math.max(1, threads))) {
+            return EXIT_FAILURE;
+        }
+        try {
+            format.get().writeToFile(output, document);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Unable to write " + output + ": " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+        return 0;
+    }
+
+    /**
+     * Generates the packages concurrently. Hashing within each package is already parallel, so the gain
+     * is mostly in overlapping directory walks and I/O of different packages.
+     *
+     * @return false if any package couldn't be generated.
+     */
+    private static boolean createPackages(SpdxDocument document, List<Path> directories, AnyLicenseInfo declaredLicense,
+                                          boolean omitHiddenFiles, int threads) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, directories.size()));
+        try {
+            List<Future<SpdxPackage>> results = new ArrayList<>(directories.size());
+            for (Path directory : directories) {
+                results.add(executor.submit(() -> {
+                    long start = System.nanoTime();
+                    SpdxPackage pkg = SpdxLogic.createSpdxPackageForPath(Optional.of(directory), document, declaredLicense,
+                            getPackageName(directory), "NOASSERTION", omitHiddenFiles);
+                    System.out.println(String.format("%s: %d files in %d ms", directory, pkg.getFiles().length,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+                    return pkg;
+                }));
+            }
+            boolean success = true;
+            for (int i = 0; i < results.size(); ++i) {
+                try {
+                    results.get(i).get();
+                } catch (ExecutionException e) {
+                    System.err.println("Unable to generate package for " + directories.get(i) + ": " + e.getCause());
+                    success = false;
+                }
+            }
+            return success;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the packages' files as they are scanned, one package at a time, keeping only the rest of
+     * the document in memory.
+     */
+    private static int streamPackages(File output, SpdxDocument document, List<Path> directories, AnyLicenseInfo declaredLicense,
+                                      boolean omitHiddenFiles) {
+        Map<SpdxPackage, PackageScanner> packages = new LinkedHashMap<>();
+        for (Path directory : directories) {
+            SpdxPackage pkg = SpdxLogic.createSpdxPackageForPath(Optional.empty(), document, declaredLicense,
+                    getPackageName(directory), "NOASSERTION", omitHiddenFiles);
+            SpdxLogic.addPackageToDocument(document, pkg);
+            packages.put(pkg, new PackageScanner(directory, omitHiddenFiles));
+        }
+        try {
+            StreamingNTriplesExport.write(output, document, packages);
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Unable to write " + output + ": " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+    }
+
+    /**
+     * Converts each of the documents into the output directory, keeping its name but for the extension.
+     */
+    private static int convertDocuments(CommandLine commandLine, FileDataType format, int threads) {
+        Optional<FileDataType> inputFormat = Optional.empty();
+        if (commandLine.hasOption("input-format")) {
+            inputFormat = parseFormat(commandLine.getOptionValue("input-format"));
+        }
+        if (commandLine.hasOption("input-format") && !inputFormat.isPresent()) {
+            System.err.println("Unknown format: " + commandLine.getOptionValue("input-format"));
+            return EXIT_USAGE;
+        }
+        Path outputDirectory = Paths.get(commandLine.getOptionValue("output"));
+        List<BatchConverter.Conversion> conversions = new ArrayList<>();
+        Set<String> outputNames = new HashSet<>();
+        for (String arg : commandLine.getArgs()) {
+            File input = new File(arg);
+            if (!input.isFile()) {
+                System.err.println("Not a file: " + arg);
+                return EXIT_USAGE;
+            }
+            String outputName = getConvertedName(input, format);
+            if (!outputNames.add(outputName)) {
+                System.err.println("More than one document would be written to " + outputName);
+                return EXIT_USAGE;
+            }
+            conversions.add(new BatchConverter.Conversion(input, inputFormat, outputDirectory.resolve(outputName).toFile()));
+        }
+        if (conversions.isEmpty()) {
+            System.err.println("No documents to convert specified");
+            printUsage();
+            return EXIT_USAGE;
+        }
+        try {
+            Files.createDirectories(outputDirectory);
+        } catch (IOException e) {
+            System.err.println("Unable to create " + outputDirectory + ": " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+
+        long start = System.nanoTime();
+        List<BatchConverter.Result> results;
+        try {
+            results = new BatchConverter(format, threads).convert(conversions, CommandLineMain::printResult);
+        } catch (InterruptedIOException e) {
+            System.err.println(e.getMessage());
+            return EXIT_FAILURE;
+        }
+        long failed = results.stream().filter(result -> !result.isSuccess()).count();
+        System.out.println(String.format("%d converted, %d failed in %d ms", results.size() - failed, failed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        return failed == 0 ? 0 : EXIT_FAILURE;
+    }
+
+    private static void printResult(BatchConverter.Result result) {
+        BatchConverter.Conversion conversion = result.getConversion();
+        if (result.isSuccess()) {
+            System.out.println(String.format("%s -> %s: read in %d ms, written in %d ms%s", conversion.getInput(), conversion.getOutput(),
+                    TimeUnit.NANOSECONDS.toMillis(result.getReadNanos()), TimeUnit.NANOSECONDS.toMillis(result.getWriteNanos()),
+                    result.getWarnings().isEmpty() ? "" : ", " + result.getWarnings().size() + " warnings"));
+        } else {
+            System.err.println(String.format("%s: conversion failed after %d ms: %s", conversion.getInput(),
+                    TimeUnit.NANOSECONDS.toMillis(result.getReadNanos() + result.getWriteNanos()), result.getFailure().get()));
+        }
+    }
+
+    /**
+     * The input file's name with the output format's extension, compressed the same way as the input.
+     */
+    private static String getConvertedName(File input, FileDataType format) {
+        Compression compression = Compression.forFileName(input.getName());
+        String name = compression == Compression.NONE ? input.getName() : StringUtils.removeEnd(input.getName(), "." + compression.getExtension());
+        name = StringUtils.substringBeforeLast(name, ".") + "." + format.getExtensions().get(0);
+        return compression == Compression.NONE ? name : name + "." + compression.getExtension();
+    }
+
+    private static String getPackageName(Path directory) {
+        return directory.toAbsolutePath().normalize().getFileName().toString();
+    }
+
+    private static Optional<FileDataType> parseFormat(String format) {
+        for (FileDataType type : FileDataType.values()) {
+            if (type.name().equalsIgnoreCase(format) || type.getDisplayName().equalsIgnoreCase(format)) {
+                return Optional.of(type);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static AnyLicenseInfo parseLicense(String id) throws InvalidSPDXAnalysisException {
+        if ("NOASSERTION".equalsIgnoreCase(id)) return new SpdxNoAssertionLicense();
+        if ("NONE".equalsIgnoreCase(id)) return new SpdxNoneLicense();
+        //Only load the license list when it's needed - it's by far the slowest part of starting up.
+        AnyLicenseInfo result = ListedLicenses.getListedLicenses().getListedLicenseById(id);
+        if (result == null) throw new InvalidSPDXAnalysisException("Unknown license " + id);
+        return result;
+    }
+
+    private static void printUsage() {
+        new HelpFormatter().printHelp("spdx-edit-cli -n <namespace> -o <file> [options] <directory>...\n"
+                + "       spdx-edit-cli --convert -f <format> -o <directory> [options] <file>...", options);
+    }
+}
@@ -0,0 +1,156 @@
+package spdxedit.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffers what's written to it and hands the full buffers to another thread, which writes them to the
+ * underlying stream. Used to compress output while it's still being produced.
+ * <p>
+ * A fixed number of buffers circulate between the two threads, so a writer that can't keep up with the producer
+ * slows it down rather than letting the data pile up in memory. Errors writing to the underlying stream are
+ * reported by the next write, flush or close. Closing waits for everything to be written, then closes the
+ * underlying stream.
+ */
+class BackgroundOutputStream extends OutputStream {
+
+    private static final int BUFFER_COUNT = 4;
+    private static final Chunk END = new Chunk(new byte[0], -1);
+
+    private static final ExecutorService writers = Executors.newCachedThreadPool(new WriterThreadFactory());
+
+    private final BlockingQueue<Chunk> full = new ArrayBlockingQueue<>(BUFFER_COUNT + 1);
+    private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    private final Future<?> writer;
+    private byte[] buffer;
+    private int count = 0;
+    private boolean closed = false;
+
+    BackgroundOutputStream(OutputStream out, int bufferSize) {
+        buffer = new byte[bufferSize];
+        for (int i = 1; i < BUFFER_COUNT; ++i) {
+            free.add(new byte[bufferSize]);
+        }
+        writer = writers.submit(() -> {
+            try (OutputStream target = out) {
+                for (Chunk chunk = full.take(); chunk != END; chunk = full.take()) {
+                    target.write(chunk.data, 0, chunk.length);
+                    free.add(chunk.data);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == buffer.length) handOff();
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (count == buffer.length) handOff();
+            int copied = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, copied);
+            count += copied;
+            off += copied;
+            len -= copied;
+        }
+    }
+
+    /**
+     * Hands what's been written so far to the writing thread, without waiting for it to be written.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        handOff();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            handOff();
+        } finally {
+            full.add(END);
+            awaitWriter();
+        }
+    }
+
+    private void handOff() throws IOException {
+        if (count == 0) return;
+        full.add(new Chunk(buffer, count));
+        buffer = null;
+        count = 0;
+        try {
+            while (buffer == null) {
+                buffer = free.poll(100, TimeUnit.MILLISECONDS);
+                if (buffer == null && writer.isDone()) {
+                    awaitWriter(); //Throws the writer's error
+                    throw new IOException("Background writer stopped");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for background writer");
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+    }
+
+    private void awaitWriter() throws IOException {
+        try {
+            writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for background writer");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private static class Chunk {
+        final byte[] data;
+        final int length;
+
+        Chunk(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+    }
+
+    private static class WriterThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "spdx-compress-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package spdxedit.io;
+
+import org.spdx.rdfparser.model.SpdxDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Converts many documents to one format, several at a time.
+ * <p>
+ * Each document is read and written by the same worker thread, so no model is ever touched by more than one
+ * thread; with several workers, some documents are being parsed while others are being serialized (and, for
+ * compressed output, compressed on yet another thread). Workers take the next input only when they're done
+ * with the previous one, so at most one document per worker is in memory at any time, however many inputs
+ * there are.
+ */
+public class BatchConverter {
+
+    private final FileDataType targetType;
+    private final int threads;
+
+    /**
+     * @param targetType The format to convert to.
+     * @param threads    The number of documents to convert concurrently.
+     */
+    public BatchConverter(FileDataType targetType, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        this.targetType = Objects.requireNonNull(targetType);
+        this.threads = threads;
+    }
+
+    /**
+     * Converts the documents, carrying on past the ones that fail.
+     *
+     * @param conversions The documents to convert.
+     * @param listener    Receives the result of each conversion as soon as it's complete, on the thread that did
+     *                    it. Results can therefore arrive out of order and concurrently.
+     * @return The results, in the order of the conversions.
+     */
+    public List<Result> convert(List<Conversion> conversions, Consumer<Result> listener) throws InterruptedIOException {
+        Result[] results = new Result[conversions.size()];
+        AtomicInteger next = new AtomicInteger();
+        int workerCount = Math.min(threads, conversions.size());
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, workerCount), new ConverterThreadFactory());
+        try {
+            List<Future<?>> running = new ArrayList<>(workerCount);
+            for (int i = 0; i < workerCount; ++i) {
+                running.add(workers.submit(() -> {
+                    for (int index = next.getAndIncrement(); index < results.length && !Thread.currentThread().isInterrupted();
+                         index = next.getAndIncrement()) {
+                        results[index] = convert(conversions.get(index));
+                        listener.accept(results[index]);
+                    }
+                }));
+            }
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Conversion interrupted");
+        } catch (ExecutionException e) {
+            //Failed conversions are results; this is a failing listener
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+        } finally {
+            workers.shutdownNow();
+        }
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    private Result convert(Conversion conversion) {
+        List<ParseWarning> warnings = new ArrayList<>();
+        long start = System.nanoTime();
+        long readNanos = 0;
+        try {
+            //Nothing is shared between conversions, so there's no point in keeping the documents in a store
+            SpdxDocument document = conversion.getInputType().isPresent()
+                    ? conversion.getInputType().get().readFromFile(conversion.getInput(), warnings::add, InMemoryDocumentStore.INSTANCE)
+                    : FileDataType.readDetected(conversion.getInput(), warnings::add, InMemoryDocumentStore.INSTANCE, Optional::empty)
+                    .orElseThrow(() -> new IOException("Unrecognized document format"));
+            readNanos = System.nanoTime() - start;
+            targetType.writeToFile(conversion.getOutput(), document);
+            return new Result(conversion, readNanos, System.nanoTime() - start - readNanos, warnings, null);
+        } catch (Exception e) {
+            long elapsed = System.nanoTime() - start;
+            return readNanos == 0 ? new Result(conversion, elapsed, 0, warnings, e) : new Result(conversion, readNanos, elapsed - readNanos, warnings, e);
+        }
+    }
+
+    /**
+     * A document to convert.
+     */
+    public static final class Conversion {
+        private final File input;
+        private final Optional<FileDataType> inputType;
+        private final File output;
+
+        /**
+         * @param inputType The format of the input, or empty to recognize it from the input's content.
+         */
+        public Conversion(File input, Optional<FileDataType> inputType, File output) {
+            this.input = Objects.requireNonNull(input);
+            this.inputType = Objects.requireNonNull(inputType);
+            this.output = Objects.requireNonNull(output);
+        }
+
+        public File getInput() {
+            return input;
+        }
+
+        public Optional<FileDataType> getInputType() {
+            return inputType;
+        }
+
+        public File getOutput() {
+            return output;
+        }
+    }
+
+    /**
+     * The outcome of converting a document.
+     */
+    public static final class Result {
+        private final Conversion conversion;
+        private final long readNanos;
+        private final long writeNanos;
+        private final List<ParseWarning> warnings;
+        private final Exception failure;
+
+        Result(Conversion conversion, long readNanos, long writeNanos, List<ParseWarning> warnings, Exception failure) {
+            this.conversion = conversion;
+            this.readNanos = readNanos;
+            this.writeNanos = writeNanos;
+            this.warnings = Collections.unmodifiableList(warnings);
+            this.failure = failure;
+        }
+
+        public Conversion getConversion() {
+            return conversion;
+        }
+
+        /**
+         * Time spent reading the input, including a failed attempt.
+         */
+        public long getReadNanos() {
+            return readNanos;
+        }
+
+        /**
+         * Time spent writing the output, including a failed attempt; 0 if the input couldn't be read.
+         */
+        public long getWriteNanos() {
+            return writeNanos;
+        }
+
+        public List<ParseWarning> getWarnings() {
+            return warnings;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        public Optional<Exception> getFailure() {
+            return Optional.ofNullable(failure);
+        }
+    }
+
+    private static class ConverterThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "spdx-convert-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
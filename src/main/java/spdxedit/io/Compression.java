@@ -0,0 +1,140 @@
+package spdxedit.io;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression of documents on disk, for every {@link FileDataType}. Output is compressed according to the
+ * extension of the file name ({@code mydoc.spdx.gz}, {@code mydoc.ttl.zst}); input is recognized by its magic
+ * bytes, whatever the file is called.
+ */
+public enum Compression {
+    NONE(null) {
+        @Override
+        OutputStream compressor(OutputStream out, int bufferSize) {
+            return out;
+        }
+
+        @Override
+        InputStream decompressor(InputStream in, int bufferSize) {
+            return in;
+        }
+    },
+    GZIP("gz", 0x1f, 0x8b) {
+        @Override
+        OutputStream compressor(OutputStream out, int bufferSize) throws IOException {
+            return new GZIPOutputStream(out, bufferSize);
+        }
+
+        @Override
+        InputStream decompressor(InputStream in, int bufferSize) throws IOException {
+            return new GZIPInputStream(in, bufferSize);
+        }
+    },
+    ZSTD("zst", 0x28, 0xb5, 0x2f, 0xfd) {
+        @Override
+        OutputStream compressor(OutputStream out, int bufferSize) throws IOException {
+            return new ZstdOutputStream(out);
+        }
+
+        @Override
+        InputStream decompressor(InputStream in, int bufferSize) throws IOException {
+            return new ZstdInputStream(in);
+        }
+    };
+
+    private static final int MAX_MAGIC_LENGTH = 4;
+
+    private final String extension;
+    private final byte[] magic;
+
+    Compression(String extension, int... magic) {
+        this.extension = extension;
+        this.magic = new byte[magic.length];
+        for (int i = 0; i < magic.length; ++i) {
+            this.magic[i] = (byte) magic[i];
+        }
+    }
+
+    abstract OutputStream compressor(OutputStream out, int bufferSize) throws IOException;
+
+    abstract InputStream decompressor(InputStream in, int bufferSize) throws IOException;
+
+    /**
+     * The extension, without the dot, that marks a file as compressed this way. Null for {@link #NONE}.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    public static Compression forFileName(String fileName) {
+        for (Compression compression : values()) {
+            if (compression.extension != null && fileName.endsWith("." + compression.extension)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns a stream that compresses what's written to it into {@code out}. Compression happens on another
+     * thread, overlapping with producing the data.
+     * <p>
+     * Closing the returned stream finishes compression and flushes {@code out}, but doesn't close it.
+     */
+    OutputStream compress(OutputStream out, int bufferSize) throws IOException {
+        OutputStream target = new UnclosableOutputStream(out);
+        if (this == NONE) return target;
+        return new BackgroundOutputStream(compressor(target, bufferSize), bufferSize);
+    }
+
+    /**
+     * Returns a stream with the decompressed contents of {@code in}, compressed in whichever way it starts with
+     * the magic bytes of, or {@code in} itself if it isn't compressed.
+     */
+    static BufferedInputStream decompress(BufferedInputStream in, int bufferSize) throws IOException {
+        byte[] start = new byte[MAX_MAGIC_LENGTH];
+        in.mark(MAX_MAGIC_LENGTH);
+        int length = 0;
+        int read;
+        while (length < start.length && (read = in.read(start, length, start.length - length)) > 0) {
+            length += read;
+        }
+        in.reset();
+        for (Compression compression : values()) {
+            if (compression != NONE && length >= compression.magic.length
+                    && Arrays.equals(compression.magic, Arrays.copyOf(start, compression.magic.length))) {
+                return new BufferedInputStream(compression.decompressor(in, bufferSize), bufferSize);
+            }
+        }
+        return in;
+    }
+
+    /**
+     * Passes everything through to the underlying stream, except for closing it, which only flushes it.
+     */
+    private static class UnclosableOutputStream extends FilterOutputStream {
+        UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package spdxedit.io;
+
+import org.apache.jena.rdf.model.Model;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
+import org.spdx.rdfparser.model.SpdxDocument;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * Where the RDF models backing open documents are kept.
+ * <p>
+ * The default store keeps them in memory. Setting the system property {@code spdxedit.store} to {@code tdb2}
+ * keeps them in a TDB2 database on disk instead (see {@link Tdb2DocumentStore}), in {@code ~/.spdxedit/store}
+ * unless {@code spdxedit.store.location} says otherwise, with node caches of {@code spdxedit.store.cacheSize}
+ * entries.
+ */
+public interface DocumentStore {
+
+    /**
+     * The document last loaded from or saved to the file, if the store still has it and the file hasn't
+     * changed since.
+     */
+    Optional<SpdxDocument> findDocument(File source) throws InvalidSPDXAnalysisException;
+
+    /**
+     * Creates an empty model to read a document into, before it's {@link #add(SpdxDocument, Optional) added}.
+     */
+    Model createModel();
+
+    /**
+     * Drops a model created by {@link #createModel()} that a document couldn't be read into.
+     */
+    default void discardModel(Model model) {
+    }
+
+    /**
+     * Takes in a document, copying it into the store unless the store already holds it as last saved.
+     *
+     * @param source The file the document was read from, if any.
+     * @return The document, backed by the store.
+     */
+    SpdxDocument add(SpdxDocument document, Optional<File> source) throws InvalidSPDXAnalysisException;
+
+    /**
+     * Records that the document was saved to the file, making the store's copy durable where applicable.
+     */
+    void documentSaved(SpdxDocument document, File target);
+
+    /**
+     * Releases whatever the store holds open. Unsaved changes are discarded.
+     */
+    default void close() {
+    }
+
+    static DocumentStore getDefault() {
+        return Holder.defaultStore;
+    }
+
+    final class Holder {
+        private static final Logger logger = LoggerFactory.getLogger(DocumentStore.class);
+        private static final DocumentStore defaultStore = createDefault();
+
+        private Holder() {
+        }
+
+        private static DocumentStore createDefault() {
+            if (!"tdb2".equalsIgnoreCase(System.getProperty("spdxedit.store"))) {
+                return InMemoryDocumentStore.INSTANCE;
+            }
+            String location = System.getProperty("spdxedit.store.location");
+            Path directory = location != null ? Paths.get(location) : Paths.get(System.getProperty("user.home"), ".spdxedit", "store");
+            try {
+                return new Tdb2DocumentStore(directory, Integer.getInteger("spdxedit.store.cacheSize", Tdb2DocumentStore.DEFAULT_CACHE_SIZE));
+            } catch (RuntimeException e) {
+                //Most likely another instance holds the database's lock.
+                logger.warn("Unable to open document store in " + directory + ", keeping documents in memory", e);
+                return InMemoryDocumentStore.INSTANCE;
+            }
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package spdxedit.io;
 
 import com.google.common.collect.ImmutableList;
+import org.apache.jena.rdf.model.Model;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.spdx.rdfparser.InvalidSPDXAnalysisException;
 import org.spdx.rdfparser.model.SpdxDocument;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Created by ybronshteyn on 1/29/17.
@@ -19,12 +26,15 @@ public enum FileDataType {
     TURTLE("RDF-Turtle", FileIoLogic::writeTurtle, FileIoLogic::readTurtle, "ttl", "turtle", "spdx"),
     JSON_LD("JSON-LD", FileIoLogic::writeJsonLd, FileIoLogic::readJsonLd, "json"),
     RDF_JSON("RDF-JSON", FileIoLogic::writeRdfJson, FileIoLogic::readRdfJson, "json"),
-    N_TRIPLES("N-TRIPLES", FileIoLogic::writeNtripples, FileIoLogic::readNTripples, "ntripples");
+    N_TRIPLES("N-TRIPLES", FileIoLogic::writeNtripples, FileIoLogic::readNTripples, "ntripples"),
+    RDF_THRIFT("RDF-Thrift (binary)", FileIoLogic::writeRdfThrift, FileIoLogic::readRdfThrift, "rt", "trdf");
 
     /*
     JSONLD("JSON-LD", "json"),
     RDF_JSON("RDF/JSON", "json")*/;
 
+    private static final Logger logger = LoggerFactory.getLogger(FileDataType.class);
+
     private final String displayName;
     private final List<String> extensions;
     private final FileOutputStrategy fileOutputLogic;
@@ -49,8 +59,71 @@ public enum FileDataType {
         fileOutputLogic.write(file, document);
     }
 
+    /**
+     * Writes the document, and lets the store know it now has the file's contents.
+     */
+    public void writeToFile(File file, SpdxDocument document, DocumentStore store) throws IOException {
+        writeToFile(file, document);
+        store.documentSaved(document, file);
+    }
+
     public SpdxDocument readFromFile(File file) throws IOException, InvalidSPDXAnalysisException {
-        return fileInputLogic.read(file);
+        return readFromFile(file, warning -> logger.warn("Reading " + file.getAbsolutePath() + ": " + warning), InMemoryDocumentStore.INSTANCE);
+    }
+
+    /**
+     * Reads the document into the store, or just opens it if the store still has it from an earlier load or save.
+     *
+     * @param warningHandler Receives any non-fatal problems found while reading.
+     */
+    public SpdxDocument readFromFile(File file, Consumer<ParseWarning> warningHandler, DocumentStore store) throws IOException, InvalidSPDXAnalysisException {
+        Optional<SpdxDocument> stored = store.findDocument(file);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        try (InputStream in = FileIoLogic.openInput(file)) {
+            return read(in, file, warningHandler, store);
+        }
+    }
+
+    /**
+     * Reads a document in whichever format {@link FormatDetector} recognizes it to be in. The file is only read
+     * once: the document is parsed from the same buffered stream the detector looks at.
+     *
+     * @param fallback Chooses the format of a document that isn't recognized, or gives up by returning empty.
+     * @return The document, or empty if the fallback gave up.
+     */
+    public static Optional<SpdxDocument> readDetected(File file, Consumer<ParseWarning> warningHandler, DocumentStore store,
+                                                      Supplier<Optional<FileDataType>> fallback) throws IOException, InvalidSPDXAnalysisException {
+        Optional<SpdxDocument> stored = store.findDocument(file);
+        if (stored.isPresent()) {
+            return stored;
+        }
+        try (InputStream in = FileIoLogic.openInput(file)) {
+            Optional<FileDataType> type = FormatDetector.detect(in);
+            if (!type.isPresent()) {
+                type = fallback.get();
+            }
+            if (!type.isPresent()) {
+                return Optional.empty();
+            }
+            return Optional.of(type.get().read(in, file, warningHandler, store));
+        }
+    }
+
+    private SpdxDocument read(InputStream in, File file, Consumer<ParseWarning> warningHandler, DocumentStore store) throws IOException, InvalidSPDXAnalysisException {
+        SpdxDocument document;
+        Model model = store.createModel();
+        try {
+            document = fileInputLogic.read(in, FileIoLogic.getBaseUrl(file), model, warningHandler);
+        } catch (IOException e) {
+            store.discardModel(model);
+            throw new IOException("Unable to read " + displayName + " file " + file.getAbsolutePath() + ": " + e.getMessage(), e);
+        } catch (InvalidSPDXAnalysisException | RuntimeException e) {
+            store.discardModel(model);
+            throw e;
+        }
+        return store.add(document, Optional.of(file));
     }
 
     @Override
@@ -1,12 +1,21 @@
 package spdxedit.io;
 
+import org.apache.jena.rdf.model.Model;
 import org.spdx.rdfparser.InvalidSPDXAnalysisException;
 import org.spdx.rdfparser.model.SpdxDocument;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
 
 @FunctionalInterface
 public interface FileInputStrategy {
-    SpdxDocument read(File file) throws IOException, InvalidSPDXAnalysisException;
+    /**
+     * @param in             The document, already decompressed. Not closed by this method.
+     * @param baseUri        The URI to resolve relative URIs in the document against.
+     * @param model          An empty model to read the document into. Readers that can't parse into a provided
+     *                       model may return a document backed by a model of their own instead.
+     * @param warningHandler Receives any non-fatal problems found while reading.
+     */
+    SpdxDocument read(InputStream in, String baseUri, Model model, Consumer<ParseWarning> warningHandler) throws IOException, InvalidSPDXAnalysisException;
 }
@@ -1,132 +1,214 @@
 package spdxedit.io;
 
 import com.github.jsonldjava.core.JsonLdOptions;
-import com.google.common.base.Joiner;
-import javafx.scene.control.Alert;
-import javafx.scene.control.ButtonType;
-import javafx.scene.control.TextArea;
+import com.google.common.io.ByteStreams;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.riot.JsonLDWriteContext;
+import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFFormat;
 import org.apache.jena.riot.system.PrefixMap;
 import org.apache.jena.riot.system.PrefixMapFactory;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.thrift.BinRDF;
+import org.apache.jena.riot.thrift.TRDF;
 import org.apache.jena.riot.writer.JsonLDWriter;
 import org.apache.jena.riot.writer.NTriplesWriter;
 import org.apache.jena.riot.writer.RDFJSONWriter;
 import org.apache.jena.riot.writer.TurtleWriter;
 import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TIOStreamTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.spdx.rdfparser.InvalidSPDXAnalysisException;
-import org.spdx.rdfparser.SPDXDocumentFactory;
 import org.spdx.rdfparser.SpdxDocumentContainer;
 import org.spdx.rdfparser.license.ListedLicenses;
 import org.spdx.rdfparser.model.SpdxDocument;
 import org.spdx.tag.CommonCode;
-import org.spdx.tools.TagToRDF;
 import spdxedit.SpdxLogic;
 
 import java.io.*;
-import java.nio.file.Paths;
-import java.util.LinkedList;
-import java.util.List;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
 import java.util.Properties;
+import java.util.function.Consumer;
 
 /**
  * Created by ybronshteyn on 1/29/17.
  */
 public class FileIoLogic {
 
+    private static final Logger logger = LoggerFactory.getLogger(FileIoLogic.class);
+
     private static final RDFFormat JSON_LD_FORMAT = RDFFormat.JSONLD_COMPACT_PRETTY;
 
-    public static void writeRdfXml(File file, SpdxDocument document) throws IOException {
-        try (FileWriter writer = new FileWriter(file)) {
-            document.getDocumentContainer().getModel().write(writer);
+    /**
+     * Size of the I/O buffers, in bytes (and chars, for the text writers on top of them).
+     * Configurable through the {@code spdxedit.io.bufferSize} system property.
+     */
+    private static final int BUFFER_SIZE = Integer.getInteger("spdxedit.io.bufferSize", 1 << 16);
+
+    @FunctionalInterface
+    interface StreamOutput {
+        void write(OutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface TextOutput {
+        void write(Writer writer) throws IOException;
+    }
+
+    /**
+     * Writes the file through a buffered channel into a temporary file next to it, and moves that into place
+     * once it's complete and synced, so a failure or crash mid-write never leaves a truncated document behind.
+     * A document being replaced keeps its permissions and group.
+     * The output is compressed if the file name calls for it (see {@link Compression}).
+     */
+    static void writeAtomically(File file, StreamOutput output) throws IOException {
+        Path target = file.getAbsoluteFile().toPath();
+        //Not Files.createTempFile(), which would leave the document readable only by its owner
+        Path tempFile = target.resolveSibling("." + target.getFileName() + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+                //Closing finishes compression and flushes, leaving the channel open to sync
+                try (OutputStream compressed = Compression.forFileName(target.getFileName().toString()).compress(out, BUFFER_SIZE)) {
+                    output.write(compressed);
+                }
+                channel.force(true);
+            }
+            if (Files.exists(target)) {
+                copyPosixAttributes(target, tempFile);
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    //Where the file system has them; the owner can't be changed, being whoever writes the file
+    private static void copyPosixAttributes(Path source, Path target) throws IOException {
+        PosixFileAttributeView sourceView = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+        PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if (sourceView == null || targetView == null) return;
+        PosixFileAttributes attributes = sourceView.readAttributes();
+        try {
+            //Before the permissions, as changing the group may clear the setgid bit
+            targetView.setGroup(attributes.group());
+        } catch (FileSystemException e) {
+            logger.warn("Unable to keep the group of " + source + ": " + e.getMessage());
         }
+        targetView.setPermissions(attributes.permissions());
     }
 
-    public static SpdxDocument loadRdfXml(File file) throws IOException, InvalidSPDXAnalysisException {
-        return SPDXDocumentFactory.createSpdxDocument(file.getAbsolutePath());
+    /**
+     * Opens the file for reading, decompressing it if it's compressed (see {@link Compression}).
+     */
+    static BufferedInputStream openInput(File file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE);
+        try {
+            return Compression.decompress(in, BUFFER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static void writeTextAtomically(File file, TextOutput output) throws IOException {
+        writeAtomically(file, out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            output.write(writer);
+            writer.flush();
+        });
+    }
+
+    public static void writeRdfXml(File file, SpdxDocument document) throws IOException {
+        //Jena declares the encoding in the XML prolog only when it writes the bytes itself.
+        writeAtomically(file, out -> document.getDocumentContainer().getModel().write(out));
+    }
+
+    public static SpdxDocument loadRdfXml(InputStream in, String baseUri, Model model, Consumer<ParseWarning> warningHandler) throws IOException, InvalidSPDXAnalysisException {
+        return readWithJenaReader("RDF/XML", in, baseUri, model);
     }
 
 
     public static void writeTagValue(File file, SpdxDocument document) throws IOException {
         Properties constants = CommonCode
                 .getTextFromProperties("org/spdx/tag/SpdxTagValueConstants.properties");
-        try (FileOutputStream os = new FileOutputStream(file); PrintWriter out = new PrintWriter(os);) {
-            // print document to a file using tag-value format
-            CommonCode.printDoc(document, out, constants);
-        } catch (InvalidSPDXAnalysisException e) {
-            throw new RuntimeException(("Illegal SPDX - unable to convert to tag/value"), e);
-        }
+        writeTextAtomically(file, writer -> {
+            PrintWriter out = new PrintWriter(writer);
+            try {
+                // print document to a file using tag-value format
+                CommonCode.printDoc(document, out, constants);
+            } catch (InvalidSPDXAnalysisException e) {
+                throw new RuntimeException(("Illegal SPDX - unable to convert to tag/value"), e);
+            }
+            //PrintWriter swallows I/O errors
+            if (out.checkError()) throw new IOException("Unable to write " + file.getAbsolutePath());
+        });
     }
 
-    public static SpdxDocument loadTagValue(File file) throws IOException, InvalidSPDXAnalysisException {
-        try (FileInputStream in = new FileInputStream(file)) {
-            List<String> warnings = new LinkedList<>();
-            SpdxDocumentContainer container = TagToRDF.convertTagFileToRdf(in, "RDF/XML", warnings);
-            if (warnings.size() > 0) {
-                Alert warningsAlert = new Alert(Alert.AlertType.WARNING, "Warnings occured in parsing Tag document", ButtonType.OK);
-                TextArea warningList = new TextArea();
-                warningList.setText(Joiner.on("\n").join(warnings));
-                warningsAlert.getDialogPane().setExpandableContent(warningList);
-                warningsAlert.showAndWait();
-            }
-            return container.getSpdxDocument();
-        } catch (Exception e) {
-            if (e instanceof InvalidSPDXAnalysisException) throw (InvalidSPDXAnalysisException) e;
-            if (e instanceof IOException) throw (IOException) e;
-            throw new IOException("Unable to read/parse tag-value file " + file.getAbsolutePath(), e);
-        }
+    /**
+     * Returns a document in a model of its own: spdx-tools' tag-value document builder always creates its model.
+     */
+    public static SpdxDocument loadTagValue(InputStream in, String baseUri, Model model, Consumer<ParseWarning> warningHandler) throws IOException, InvalidSPDXAnalysisException {
+        return TagValueReader.read(in, warningHandler);
     }
 
     public static void writeTurtle(File file, SpdxDocument document) throws IOException {
-        try (FileWriter writer = new FileWriter(file)) {
+        try {
             TurtleWriter turtleWriter = new TurtleWriter();
             Model model = document.getDocumentContainer().getModel();
             PrefixMap prefixMap = PrefixMapFactory.create(model.getNsPrefixMap());
             prefixMap.add("", SpdxLogic.SPDX_URI_NAMESPACE);
             prefixMap.add("licenseList", ListedLicenses.LISTED_LICENSE_URI_PREFIX);
             prefixMap.add(StringUtils.removeAll(document.getName(), " "), document.getDocumentNamespace());
-            turtleWriter.write(writer, model.getGraph(), prefixMap, SpdxLogic.SPDX_URI_NAMESPACE, null);
+            writeTextAtomically(file, writer -> turtleWriter.write(writer, model.getGraph(), prefixMap, SpdxLogic.SPDX_URI_NAMESPACE, null));
         } catch (InvalidSPDXAnalysisException e) {
             throw new RuntimeException("Document information (name and namespace) not present.");
         }
     }
 
     public static void writeNtripples(File file, SpdxDocument document) throws IOException {
-        try (FileWriter writer = new FileWriter(file)) {
+        try {
             NTriplesWriter nTriplesWriter = new NTriplesWriter();
             Model model = document.getDocumentContainer().getModel();
             PrefixMap prefixMap = PrefixMapFactory.create(model.getNsPrefixMap());
             prefixMap.add("", SpdxLogic.SPDX_URI_NAMESPACE);
             prefixMap.add("licenseList", ListedLicenses.LISTED_LICENSE_URI_PREFIX);
             prefixMap.add(StringUtils.removeAll(document.getName(), " "), document.getDocumentNamespace());
-            nTriplesWriter.write(writer, model.getGraph(), prefixMap, SpdxLogic.SPDX_URI_NAMESPACE, null);
+            writeTextAtomically(file, writer -> nTriplesWriter.write(writer, model.getGraph(), prefixMap, SpdxLogic.SPDX_URI_NAMESPACE, null));
         } catch (InvalidSPDXAnalysisException e) {
             throw new RuntimeException("Document information (name and namespace) not present.");
         }
     }
 
-    public static SpdxDocument readTurtle(File file) throws IOException, InvalidSPDXAnalysisException {
-        return readWithJenaReader("TURTLE", file);
+    public static SpdxDocument readTurtle(InputStream in, String baseUri, Model model, Consumer<ParseWarning> warningHandler) throws IOException, InvalidSPDXAnalysisException {
+        return readWithJenaReader("TURTLE", in, baseUri, model);
     }
 
-    public static SpdxDocument readNTripples(File file) throws IOException, InvalidSPDXAnalysisException{
-        return readWithJenaReader("NTRIPLES", file);
+    public static SpdxDocument readNTripples(InputStream in, String baseUri, Model model, Consumer<ParseWarning> warningHandler) throws IOException, InvalidSPDXAnalysisException{
+        return readWithJenaReader("NTRIPLES", in, baseUri, model);
     }
 
-    private static SpdxDocument readWithJenaReader(String jenaLanguage, File file) throws IOException, InvalidSPDXAnalysisException {
-        try (FileReader reader = new FileReader(file)) {
-            Model model = ModelFactory.createDefaultModel();
-            model.getReader(jenaLanguage).read(model, reader, getBaseUrl(file));
-            SpdxDocumentContainer container = new SpdxDocumentContainer(model);
-            return container.getSpdxDocument();
-        }
+    private static SpdxDocument readWithJenaReader(String jenaLanguage, InputStream in, String baseUri, Model model) throws IOException, InvalidSPDXAnalysisException {
+        //Bytes rather than chars: all of these formats are UTF-8, except RDF/XML, which declares its own encoding.
+        model.read(in, baseUri, jenaLanguage);
+        SpdxDocumentContainer container = new SpdxDocumentContainer(model);
+        return container.getSpdxDocument();
     }
 
     public static void writeJsonLd(File file, SpdxDocument document) throws IOException {
-        try (FileWriter writer = new FileWriter(file)) {
+        writeTextAtomically(file, writer -> {
             Model model = document.getDocumentContainer().getModel();
             JsonLDWriter jsonLDWriter = new JsonLDWriter(RDFFormat.JSONLD_EXPAND_PRETTY);
             JsonLDWriteContext context = new JsonLDWriteContext();
@@ -137,38 +219,49 @@ public class FileIoLogic {
             PrefixMap prefixMap = PrefixMapFactory.create(model.getNsPrefixMap());
             prefixMap.delete("spdx");
             jsonLDWriter.write(writer, DatasetGraphFactory.create(model.getGraph()), prefixMap, SpdxLogic.SPDX_URI_NAMESPACE, context);
-        }
+        });
     }
 
-    public static SpdxDocument readJsonLd(File file) throws IOException, InvalidSPDXAnalysisException {
-        return readWithJenaReader(JSON_LD_FORMAT.getLang().getName(), file);
+    public static SpdxDocument readJsonLd(InputStream in, String baseUri, Model model, Consumer<ParseWarning> warningHandler) throws IOException, InvalidSPDXAnalysisException {
+        return readWithJenaReader(JSON_LD_FORMAT.getLang().getName(), in, baseUri, model);
     }
 
 
     public static void writeRdfJson(File file, SpdxDocument document) throws IOException{
-        try (FileWriter writer = new FileWriter(file)) {
+        try {
             RDFJSONWriter rdfJsonWriter = new RDFJSONWriter();
             Model model = document.getDocumentContainer().getModel();
             PrefixMap prefixMap = PrefixMapFactory.create(model.getNsPrefixMap());
             prefixMap.add("", SpdxLogic.SPDX_URI_NAMESPACE);
             prefixMap.add("licenseList", ListedLicenses.LISTED_LICENSE_URI_PREFIX);
             prefixMap.add(StringUtils.removeAll(document.getName(), " "), document.getDocumentNamespace());
-            rdfJsonWriter.write(writer, model.getGraph(), prefixMap, SpdxLogic.SPDX_URI_NAMESPACE, null);
+            writeTextAtomically(file, writer -> rdfJsonWriter.write(writer, model.getGraph(), prefixMap, SpdxLogic.SPDX_URI_NAMESPACE, null));
         } catch (InvalidSPDXAnalysisException e) {
             throw new RuntimeException("Document information (name and namespace) not present.");
         }
     }
 
-    public static SpdxDocument readRdfJson(File file) throws IOException, InvalidSPDXAnalysisException {
-        try (FileReader reader = new FileReader(file)) {
-            Model model = ModelFactory.createDefaultModel();
-            model.getReader("RDFJSON").read(model, reader, getBaseUrl(file));
-            SpdxDocumentContainer container = new SpdxDocumentContainer(model);
-            return container.getSpdxDocument();
-        }
+    public static SpdxDocument readRdfJson(InputStream in, String baseUri, Model model, Consumer<ParseWarning> warningHandler) throws IOException, InvalidSPDXAnalysisException {
+        return readWithJenaReader("RDFJSON", in, baseUri, model);
+    }
+
+    /**
+     * Jena's binary RDF encoding: much faster to write and read back than the text formats, but not meant for
+     * exchange with other tools.
+     */
+    public static void writeRdfThrift(File file, SpdxDocument document) throws IOException {
+        writeAtomically(file, out -> RDFDataMgr.write(out, document.getDocumentContainer().getModel(), RDFFormat.RDF_THRIFT));
+    }
+
+    public static SpdxDocument readRdfThrift(InputStream in, String baseUri, Model model, Consumer<ParseWarning> warningHandler) throws IOException, InvalidSPDXAnalysisException {
+        //Jena's own reader gives up before the first row with the libthrift version build.gradle forces, whose
+        //transports only report themselves open when they have an output stream too. This one never writes.
+        TProtocol protocol = TRDF.protocol(new TIOStreamTransport(in, ByteStreams.nullOutputStream()));
+        BinRDF.protocolToStream(protocol, StreamRDFLib.graph(model.getGraph()));
+        return new SpdxDocumentContainer(model).getSpdxDocument();
     }
 
-    private static String getBaseUrl(File file) throws IOException {
+    static String getBaseUrl(File file) {
         return Paths.get(file.getAbsolutePath()).toUri().toString();
     }
 
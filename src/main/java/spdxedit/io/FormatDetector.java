@@ -0,0 +1,110 @@
+package spdxedit.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes the format of a document from its first few kilobytes, so that documents can be loaded without
+ * being told their format. (The {@code .spdx} extension alone is used for RDF/XML, tag-value and Turtle.)
+ */
+public class FormatDetector {
+
+    /**
+     * How much of the document is looked at, in bytes.
+     */
+    static final int SNIFF_SIZE = 8192;
+
+    private static final Pattern XML_START = Pattern.compile("^<(\\?xml|!|[A-Za-z_][\\w.-]*(:[A-Za-z_][\\w.-]*)?([\\s>/]|$))");
+    private static final Pattern TURTLE_DIRECTIVE = Pattern.compile("^(@prefix|@base|prefix\\s|base\\s)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TAG = Pattern.compile("^[A-Za-z]+:(\\s|$)");
+    private static final Pattern N_TRIPLE = Pattern.compile("^(<[^>\\s]*>|_:\\S+)\\s+<[^>\\s]*>\\s+.*\\.\\s*$");
+    private static final Pattern JSON_LD_KEYWORD = Pattern.compile("\"@(context|id|graph|type|value)\"\\s*:");
+    //The compact protocol's type of struct fields, in the low nibble of a field header
+    private static final int STRUCT_TYPE = 0x0C;
+
+    private FormatDetector() {
+    }
+
+    /**
+     * Recognizes the format of the document the stream is positioned at, and leaves it positioned there, so the
+     * document can be read from the same stream.
+     *
+     * @param in The document, already decompressed. Must support mark and reset.
+     */
+    public static Optional<FileDataType> detect(InputStream in) throws IOException {
+        byte[] start = new byte[SNIFF_SIZE];
+        in.mark(SNIFF_SIZE);
+        int length = 0;
+        int read;
+        while (length < start.length && (read = in.read(start, length, start.length - length)) > 0) {
+            length += read;
+        }
+        in.reset();
+        return detect(start, length);
+    }
+
+    static Optional<FileDataType> detect(byte[] start, int length) {
+        if (isRdfThrift(start, length)) return Optional.of(FileDataType.RDF_THRIFT);
+        for (int i = 0; i < length; ++i) {
+            //None of the text formats has control characters other than whitespace
+            if ((start[i] & 0xff) < 0x20 && start[i] != '\t' && start[i] != '\n' && start[i] != '\r' && start[i] != '\f') {
+                return Optional.empty();
+            }
+        }
+        String text = new String(start, 0, length, StandardCharsets.UTF_8);
+        if (text.startsWith("\uFEFF")) text = text.substring(1);
+        List<String> lines = getContentLines(text, length == start.length);
+        if (lines.isEmpty()) return Optional.empty();
+
+        String first = lines.get(0);
+        if (first.startsWith("[")) return Optional.of(FileDataType.JSON_LD);
+        if (first.startsWith("{")) {
+            //RDF/JSON has no keywords: its keys are all subject and predicate URIs (and "type", "value"...)
+            return Optional.of(JSON_LD_KEYWORD.matcher(text).find() ? FileDataType.JSON_LD : FileDataType.RDF_JSON);
+        }
+        if (XML_START.matcher(first).find()) return Optional.of(FileDataType.RDF_XML);
+        if (TURTLE_DIRECTIVE.matcher(first).find()) return Optional.of(FileDataType.TURTLE);
+        if (TAG.matcher(first).find()) return Optional.of(FileDataType.TAG);
+        if (first.startsWith("<") || first.startsWith("_:")) {
+            //Every N-Triples document is also Turtle, but the N-Triples parser is faster
+            return Optional.of(lines.stream().allMatch(line -> N_TRIPLE.matcher(line).matches()) ? FileDataType.N_TRIPLES : FileDataType.TURTLE);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Whether the bytes start with an RDF_StreamRow in Thrift's compact protocol: a prefix declaration (field 1, a
+     * struct, whose first field is the prefix string) or a triple or quad (field 2 or 3, a struct, whose first
+     * field is the subject term, itself a struct with a single field set).
+     */
+    private static boolean isRdfThrift(byte[] start, int length) {
+        if (length < 3) return false;
+        if (start[0] == 0x1C) return start[1] == 0x18;
+        return (start[0] == 0x2C || start[0] == 0x3C) && start[1] == 0x1C
+                && (start[2] & 0x0F) == STRUCT_TYPE && (start[2] & 0xF0) != 0;
+    }
+
+    /**
+     * The lines of the text that aren't blank or comments, without leading whitespace.
+     *
+     * @param truncated Whether the text was cut off, in which case its last line is left out, being incomplete
+     *                  (unless it's the only one).
+     */
+    private static List<String> getContentLines(String text, boolean truncated) {
+        String[] lines = text.split("\r?\n|\r");
+        int count = truncated && lines.length > 1 ? lines.length - 1 : lines.length;
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            String line = lines[i].trim();
+            if (!line.isEmpty() && line.charAt(0) != '#') {
+                result.add(line);
+            }
+        }
+        return result;
+    }
+}
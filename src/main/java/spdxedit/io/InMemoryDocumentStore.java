@@ -0,0 +1,38 @@
+package spdxedit.io;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.spdx.rdfparser.model.SpdxDocument;
+
+import java.io.File;
+import java.util.Optional;
+
+/**
+ * Keeps every document in its own in-memory model.
+ */
+public class InMemoryDocumentStore implements DocumentStore {
+
+    public static final InMemoryDocumentStore INSTANCE = new InMemoryDocumentStore();
+
+    private InMemoryDocumentStore() {
+    }
+
+    @Override
+    public Optional<SpdxDocument> findDocument(File source) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Model createModel() {
+        return ModelFactory.createDefaultModel();
+    }
+
+    @Override
+    public SpdxDocument add(SpdxDocument document, Optional<File> source) {
+        return document;
+    }
+
+    @Override
+    public void documentSaved(SpdxDocument document, File target) {
+    }
+}
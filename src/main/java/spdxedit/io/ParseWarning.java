@@ -0,0 +1,46 @@
+package spdxedit.io;
+
+import java.util.OptionalInt;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A non-fatal problem found while reading a document.
+ */
+public final class ParseWarning {
+
+    //spdx-tools reports line numbers as part of the message text
+    private static final Pattern LINE_NUMBER_PATTERN = Pattern.compile("at line(?: number)? (\\d+)");
+
+    private final String message;
+    private final OptionalInt lineNumber;
+
+    public ParseWarning(String message, OptionalInt lineNumber) {
+        this.message = message;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Creates a warning from a message, taking the line number from the message if it mentions one.
+     */
+    public static ParseWarning fromMessage(String message) {
+        Matcher matcher = LINE_NUMBER_PATTERN.matcher(message);
+        return new ParseWarning(message, matcher.find() ? OptionalInt.of(Integer.parseInt(matcher.group(1))) : OptionalInt.empty());
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * The line of the document the warning is about, if known.
+     */
+    public OptionalInt getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+}
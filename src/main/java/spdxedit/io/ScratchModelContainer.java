@@ -0,0 +1,83 @@
+package spdxedit.io;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.spdx.rdfparser.IModelContainer;
+import org.spdx.rdfparser.model.IRdfModel;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A throwaway model that SPDX elements of a document can be serialized into, a batch at a time,
+ * without the document itself.
+ * <p>
+ * Unlike {@link org.spdx.rdfparser.SpdxDocumentContainer}, it doesn't track the element IDs or the objects
+ * created for each node, so its memory use is only that of the triples in it. The caller is responsible for
+ * making sure every element ends up with a unique ID.
+ */
+class ScratchModelContainer implements IModelContainer {
+
+    private final Model model = ModelFactory.createDefaultModel();
+    private final String documentNamespace;
+    private final String idPrefix;
+    private final AtomicLong nextId;
+
+    /**
+     * @param documentNamespace The namespace of the document the elements belong to, including the trailing '#'.
+     * @param idPrefix          The prefix of the IDs generated for new elements.
+     * @param nextId            Generates the numeric part of element IDs, shared by successive batches.
+     */
+    ScratchModelContainer(String documentNamespace, String idPrefix, AtomicLong nextId) {
+        this.documentNamespace = documentNamespace;
+        this.idPrefix = idPrefix;
+        this.nextId = nextId;
+    }
+
+    @Override
+    public Model getModel() {
+        return model;
+    }
+
+    @Override
+    public String getDocumentNamespace() {
+        return documentNamespace;
+    }
+
+    @Override
+    public String getNextSpdxElementRef() {
+        return idPrefix + nextId.incrementAndGet();
+    }
+
+    @Override
+    public boolean spdxElementRefExists(String elementRef) {
+        return false;
+    }
+
+    @Override
+    public void addSpdxElementRef(String elementRef) {
+    }
+
+    @Override
+    public String documentNamespaceToId(String externalNamespace) {
+        return null;
+    }
+
+    @Override
+    public String externalDocumentIdToNamespace(String docId) {
+        return null;
+    }
+
+    @Override
+    public Resource createResource(Resource duplicate, String uri, Resource type, IRdfModel nodeObject) {
+        Resource result = duplicate != null ? duplicate : (uri == null ? model.createResource(type) : model.createResource(uri, type));
+        nodeObject.setSingleObjectForSameNode();
+        return result;
+    }
+
+    @Override
+    public boolean addCheckNodeObject(Node node, IRdfModel nodeObject) {
+        return false;
+    }
+}
@@ -0,0 +1,116 @@
+package spdxedit.io;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFOps;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
+import org.spdx.rdfparser.SpdxPackageVerificationCode;
+import org.spdx.rdfparser.SpdxRdfConstants;
+import org.spdx.rdfparser.license.SpdxNoAssertionLicense;
+import org.spdx.rdfparser.model.SpdxDocument;
+import org.spdx.rdfparser.model.SpdxFile;
+import org.spdx.rdfparser.model.SpdxPackage;
+import spdxedit.SharedLicenses;
+import spdxedit.SpdxLogic;
+import spdxedit.VerificationCodeAccumulator;
+import spdxedit.scan.PackageScanner;
+import spdxedit.scan.ScannedFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Writes a document as N-Triples with the files of its packages streamed from the package scans straight to disk.
+ * <p>
+ * Files never become part of the document's model: they are serialized into a scratch model a batch at a time,
+ * written out and dropped, so memory use doesn't grow with the number of files (apart from the 20-byte SHA-1
+ * per file needed for the verification codes). The rest of the document is written from its model at the end.
+ */
+public class StreamingNTriplesExport {
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final String FILE_ID_PREFIX = "SPDXRef-File-";
+    private static final Node HAS_FILE = NodeFactory.createURI(SpdxRdfConstants.SPDX_NAMESPACE + SpdxRdfConstants.PROP_PACKAGE_FILE);
+
+    /**
+     * @param file     The file to write to.
+     * @param document The document to write. Its packages' file lists aren't written.
+     * @param packages The packages of the document to add files to, each with the scanner producing its files.
+     *                 The packages' verification codes are set from the scanned files.
+     */
+    public static void write(File file, SpdxDocument document, Map<SpdxPackage, PackageScanner> packages) throws IOException {
+        FileIoLogic.writeAtomically(file, out -> {
+            StreamRDF stream = StreamRDFWriter.getWriterStream(out, Lang.NTRIPLES);
+            stream.start();
+            String documentNamespace = document.getDocumentContainer().getDocumentNamespace();
+            AtomicLong nextFileId = new AtomicLong();
+            //Written once into each batch
+            SpdxNoAssertionLicense noAssertion = SharedLicenses.forDocument(document.getDocumentContainer()).getNoAssertion();
+            for (Map.Entry<SpdxPackage, PackageScanner> entry : packages.entrySet()) {
+                FileBatcher batcher = new FileBatcher(stream, entry.getKey().getNode(), documentNamespace, nextFileId, noAssertion);
+                entry.getValue().scan(batcher);
+                batcher.flush();
+                try {
+                    entry.getKey().setFilesAnalyzed(true);
+                    entry.getKey().setPackageVerificationCode(new SpdxPackageVerificationCode(batcher.verificationCode.computeValue(), new String[0]));
+                } catch (InvalidSPDXAnalysisException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            StreamRDFOps.sendGraphToStream(document.getDocumentContainer().getModel().getGraph(), stream);
+            stream.finish();
+        });
+    }
+
+    private static class FileBatcher implements Consumer<ScannedFile> {
+        private final StreamRDF stream;
+        private final Node packageNode;
+        private final String documentNamespace;
+        private final AtomicLong nextFileId;
+        private final VerificationCodeAccumulator verificationCode = new VerificationCodeAccumulator(Collections.emptyList());
+        private ScratchModelContainer batch;
+        private final SpdxNoAssertionLicense noAssertion;
+        private int batchSize = 0;
+
+        FileBatcher(StreamRDF stream, Node packageNode, String documentNamespace, AtomicLong nextFileId, SpdxNoAssertionLicense noAssertion) {
+            this.stream = stream;
+            this.packageNode = packageNode;
+            this.documentNamespace = documentNamespace;
+            this.nextFileId = nextFileId;
+            this.noAssertion = noAssertion;
+        }
+
+        @Override
+        public void accept(ScannedFile scannedFile) {
+            if (batch == null) {
+                batch = new ScratchModelContainer(documentNamespace, FILE_ID_PREFIX, nextFileId);
+            }
+            try {
+                SpdxFile spdxFile = SpdxLogic.newSpdxFile(scannedFile, noAssertion);
+                Node fileNode = spdxFile.createResource(batch).asNode();
+                batch.getModel().getGraph().add(Triple.create(packageNode, HAS_FILE, fileNode));
+            } catch (InvalidSPDXAnalysisException e) {
+                throw new RuntimeException(e);
+            }
+            verificationCode.addFile(scannedFile.getName(), scannedFile.getSha1());
+            if (++batchSize == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch == null) return;
+            StreamRDFOps.sendGraphToStream(batch.getModel().getGraph(), stream);
+            batch = null;
+            batchSize = 0;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package spdxedit.io;
+
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
+import org.spdx.rdfparser.SpdxDocumentContainer;
+import org.spdx.rdfparser.model.SpdxDocument;
+import org.spdx.tag.BuildDocument;
+import org.spdx.tag.CommonCode;
+import org.spdx.tag.TagValueBehavior;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads tag-value documents in a single pass, one line at a time, handing each tag and value straight to
+ * spdx-tools' document builder, which creates the packages, files and licenses in the document's model.
+ * <p>
+ * Accepts the same syntax as spdx-tools' {@code TagToRDF}, without its overhead: the input is decoded once
+ * (rather than decoded, re-encoded and decoded again to strip comments), multi-line text values are
+ * accumulated in a buffer rather than by repeated string concatenation, and parse errors keep their line number.
+ */
+public class TagValueReader {
+
+    private static final String START_TEXT = "<text>";
+    private static final String END_TEXT = "</text>";
+    private static final Pattern TAG_PATTERN = Pattern.compile("^\\w+:");
+
+    private static Properties constants;
+
+    private final BufferedReader reader;
+    private final TagValueBehavior builder;
+    private int lineNumber = 0;
+
+    private TagValueReader(InputStream in, TagValueBehavior builder) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        this.builder = builder;
+    }
+
+    /**
+     * Reads a tag-value document.
+     *
+     * @param in             The document. Not closed by this method.
+     * @param warningHandler Receives the warnings produced while reading and verifying the document.
+     */
+    public static SpdxDocument read(InputStream in, Consumer<ParseWarning> warningHandler) throws IOException, InvalidSPDXAnalysisException {
+        SpdxDocumentContainer[] result = new SpdxDocumentContainer[1];
+        List<String> warnings = new ArrayList<>();
+        TagValueReader reader = new TagValueReader(in, new BuildDocument(result, getConstants(), warnings));
+        try {
+            reader.parse();
+        } catch (IOException | InvalidSPDXAnalysisException e) {
+            throw e;
+        } catch (Exception e) {
+            //The builder throws plain Exceptions (and its own tag-file exceptions) for invalid content
+            throw new IOException("Invalid tag-value document at line " + reader.lineNumber + ": " + e.getMessage(), e);
+        }
+        warnings.stream().map(ParseWarning::fromMessage).forEach(warningHandler);
+        if (result[0] == null) {
+            throw new InvalidSPDXAnalysisException("No SPDX document found in tag-value input");
+        }
+        return result[0].getSpdxDocument();
+    }
+
+    private static synchronized Properties getConstants() throws IOException {
+        if (constants == null) {
+            constants = CommonCode.getTextFromProperties("org/spdx/tag/SpdxTagValueConstants.properties");
+        }
+        return constants;
+    }
+
+    private void parse() throws Exception {
+        String tag = null;
+        StringBuilder text = null; //Not null while inside a multi-line text block
+        String line;
+        while ((line = nextLine(text != null)) != null) {
+            if (text != null) {
+                if (line.indexOf(START_TEXT) > 0) {
+                    throw new IOException("Found a text block inside another text block at line " + lineNumber + ". Expecting " + END_TEXT);
+                }
+                int endText = line.indexOf(END_TEXT);
+                if (endText >= 0) {
+                    text.append('\n').append(line.substring(0, endText).trim());
+                    builder.buildDocument(tag, text.toString(), lineNumber);
+                    text = null;
+                } else {
+                    text.append('\n').append(line);
+                }
+                continue;
+            }
+            Matcher tagMatcher = TAG_PATTERN.matcher(line);
+            if (!tagMatcher.find()) {
+                continue; //Same as spdx-tools: lines that aren't tags or text are ignored
+            }
+            tag = tagMatcher.group();
+            int startText = line.indexOf(START_TEXT);
+            if (startText > 0) {
+                String value = line.substring(startText + START_TEXT.length()).trim();
+                int endText = value.indexOf(END_TEXT);
+                if (endText >= 0) {
+                    builder.buildDocument(tag, value.substring(0, endText).trim(), lineNumber);
+                } else {
+                    text = new StringBuilder(value);
+                }
+            } else {
+                builder.buildDocument(tag, line.substring(tag.length()).trim(), lineNumber);
+            }
+        }
+        if (text != null) {
+            throw new IOException("Unterminated text block at line " + lineNumber + ". Expecting " + END_TEXT);
+        }
+        builder.exit();
+    }
+
+    /**
+     * @param inText Whether the reader is inside a text block, where blank lines and comments are content.
+     * @return The next line, or null at the end of the input.
+     */
+    private String nextLine(boolean inText) throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) return null;
+            ++lineNumber;
+        } while (!inText && (line.isEmpty() || line.charAt(0) == '#'));
+        return line;
+    }
+}
@@ -0,0 +1,270 @@
+package spdxedit.io;
+
+import com.google.common.collect.Iterators;
+import org.apache.jena.dboe.base.file.Location;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.*;
+import org.apache.jena.rdf.listeners.StatementListener;
+import org.apache.jena.tdb2.params.StoreParams;
+import org.apache.jena.tdb2.sys.DatabaseConnection;
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
+import org.spdx.rdfparser.SpdxDocumentContainer;
+import org.spdx.rdfparser.model.SpdxDocument;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps documents on disk, each in a named graph of a TDB2 database, so that only the parts of a document
+ * being worked on need to be in memory, and reopening an unchanged file doesn't require parsing it again.
+ * <p>
+ * TDB2 only allows access within transactions, and transactions belong to a thread. The store keeps a write
+ * transaction open, holding the unsaved changes of the document being edited; saving the document commits it.
+ * Adding another document - loaded or new - replaces the one being edited: the transaction is aborted, dropping
+ * that document's unsaved changes, and its graph too if it was never saved, and the new document gets a
+ * transaction of its own; so does reopening a file the store still has, which reverts it to how it was last
+ * saved. Documents are parsed straight into a new graph, and a failed parse is aborted, leaving nothing behind.
+ * Changes that are never saved are therefore discarded. All access to the store and to the documents in it has
+ * to happen on that same thread (the UI thread, in the editor).
+ */
+public class Tdb2DocumentStore implements DocumentStore, Closeable {
+
+    static final int DEFAULT_CACHE_SIZE = 100_000;
+
+    private static final String NAMESPACE = "urn:spdxedit:store#";
+    private static final Property GRAPH = ResourceFactory.createProperty(NAMESPACE, "graph");
+    private static final Property SIZE = ResourceFactory.createProperty(NAMESPACE, "size");
+    private static final Property MODIFIED = ResourceFactory.createProperty(NAMESPACE, "modified");
+
+    private final Dataset dataset;
+    //Models handed out by this store, by identity, to the names of their graphs
+    private final Map<Model, String> graphNames = new IdentityHashMap<>();
+    //Graphs changed in the current transaction
+    private final Set<String> changedGraphs = new HashSet<>();
+    //The graph created by createModel for a document being read, until the document is added
+    private String pendingGraph;
+
+    /**
+     * @param directory The database directory, created if it doesn't exist.
+     * @param cacheSize The number of entries in each of the node caches.
+     */
+    public Tdb2DocumentStore(Path directory, int cacheSize) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        StoreParams params = StoreParams.builder()
+                .node2NodeIdCacheSize(cacheSize)
+                .nodeId2NodeCacheSize(cacheSize)
+                .build();
+        dataset = DatasetFactory.wrap(DatabaseConnection.connectCreate(Location.create(directory.toString()), params).getDatasetGraph());
+    }
+
+    /**
+     * Finds the document as last saved, making it the one being edited: unsaved changes, to it or any other
+     * document, are discarded.
+     */
+    @Override
+    public Optional<SpdxDocument> findDocument(File source) throws InvalidSPDXAnalysisException {
+        ensureTransaction();
+        Resource sourceResource = getSourceResource(source);
+        Statement graph = sourceResource.getProperty(GRAPH);
+        if (graph == null || !isUnchanged(sourceResource, source)) {
+            return Optional.empty();
+        }
+        String graphName = graph.getResource().getURI();
+        //Reverts the graph to what was committed for the file
+        discardChanges();
+        Model model = getGraph(graphName);
+        return Optional.of(new SpdxDocumentContainer(model).getSpdxDocument());
+    }
+
+    /**
+     * Creates a new graph in the store for a document to be read into, so that the document never has to fit in
+     * memory. The document being read replaces the one being edited, whose unsaved changes are discarded; the new
+     * graph is committed by {@link #add(SpdxDocument, Optional)}, or dropped by {@link #discardModel(Model)}.
+     */
+    @Override
+    public Model createModel() {
+        discardChanges();
+        Model result = getGraph(newGraphName());
+        pendingGraph = graphNames.get(result);
+        return result;
+    }
+
+    /**
+     * Drops the graph a document failed to be read into, by aborting the transaction it was written in.
+     */
+    @Override
+    public void discardModel(Model model) {
+        if (graphNames.containsKey(model)) {
+            discardChanges();
+        }
+    }
+
+    /**
+     * Adds the document as the one being edited, discarding the unsaved changes of any other.
+     */
+    @Override
+    public SpdxDocument add(SpdxDocument document, Optional<File> source) throws InvalidSPDXAnalysisException {
+        Model model = document.getDocumentContainer().getModel();
+        String graphName = graphNames.get(model);
+        if (graphName != null && graphName.equals(pendingGraph)) {
+            //Just read into the store; the only change in the transaction
+            pendingGraph = null;
+        } else if (graphName != null && !changedGraphs.contains(graphName)) {
+            //Already in the store, as last committed
+            discardChanges();
+        } else {
+            //Copied out first if it's in the store, as it's part of the transaction about to be aborted
+            Model content = graphNames.containsKey(model) ? copyToMemory(model) : model;
+            discardChanges();
+            Model copy = getGraph(newGraphName());
+            copy.setNsPrefixes(content.getNsPrefixMap());
+            copy.add(content);
+            document = new SpdxDocumentContainer(copy).getSpdxDocument();
+        }
+        if (source.isPresent()) {
+            recordSource(document, source.get());
+            commit();
+        }
+        return document;
+    }
+
+    @Override
+    public void documentSaved(SpdxDocument document, File target) {
+        if (!graphNames.containsKey(document.getDocumentContainer().getModel())) return;
+        recordSource(document, target);
+        commit();
+    }
+
+    @Override
+    public void close() {
+        if (dataset.isInTransaction()) {
+            dataset.abort();
+        }
+        dataset.close();
+    }
+
+    /**
+     * The number of graphs in the store, committed or not.
+     */
+    int getGraphCount() {
+        ensureTransaction();
+        return Iterators.size(dataset.listNames());
+    }
+
+    private static String newGraphName() {
+        return "urn:spdxedit:graph:" + UUID.randomUUID();
+    }
+
+    private Model getGraph(String name) {
+        Model result = dataset.getNamedModel(name);
+        graphNames.put(result, name);
+        result.register(new StatementListener() {
+            @Override
+            public void addedStatement(Statement statement) {
+                changedGraphs.add(name);
+            }
+
+            @Override
+            public void removedStatement(Statement statement) {
+                changedGraphs.add(name);
+            }
+
+            @Override
+            public void notifyEvent(Model model, Object event) {
+                //Bulk changes, such as removing all statements
+                changedGraphs.add(name);
+            }
+        });
+        return result;
+    }
+
+    private static Model copyToMemory(Model model) {
+        Model result = ModelFactory.createDefaultModel();
+        result.setNsPrefixes(model.getNsPrefixMap());
+        result.add(model);
+        return result;
+    }
+
+    /**
+     * Aborts the current transaction, if it changed anything, and starts another. Graphs that were never
+     * committed, or never written to, are gone after that, and are forgotten.
+     */
+    private void discardChanges() {
+        ensureTransaction();
+        if (!changedGraphs.isEmpty()) {
+            dataset.abort();
+            changedGraphs.clear();
+            dataset.begin(ReadWrite.WRITE);
+        }
+        pendingGraph = null;
+        graphNames.values().removeIf(name -> !dataset.containsNamedModel(name));
+    }
+
+    /**
+     * Marks the document's graph as the current contents of the file, replacing whatever the file was mapped to.
+     */
+    private void recordSource(SpdxDocument document, File file) {
+        String graphName = graphNames.get(document.getDocumentContainer().getModel());
+        Resource sourceResource = getSourceResource(file);
+        Statement previous = sourceResource.getProperty(GRAPH);
+        if (previous != null && !previous.getResource().getURI().equals(graphName)) {
+            //Only this file referred to the old graph
+            dataset.removeNamedModel(previous.getResource().getURI());
+            graphNames.values().remove(previous.getResource().getURI());
+        }
+        sourceResource.removeProperties();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            sourceResource.addProperty(GRAPH, dataset.getDefaultModel().createResource(graphName))
+                    .addLiteral(SIZE, attributes.size())
+                    .addLiteral(MODIFIED, attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            //Without the file's attributes, the graph can't be reused for it later - which is all that's lost.
+        }
+    }
+
+    private boolean isUnchanged(Resource sourceResource, File file) {
+        Statement size = sourceResource.getProperty(SIZE);
+        Statement modified = sourceResource.getProperty(MODIFIED);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            return size != null && modified != null
+                    && size.getLong() == attributes.size() && modified.getLong() == attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Resource getSourceResource(File file) {
+        return dataset.getDefaultModel().createResource(file.getAbsoluteFile().toURI().toString());
+    }
+
+    private void ensureTransaction() {
+        if (!dataset.isInTransaction()) {
+            dataset.begin(ReadWrite.WRITE);
+        }
+    }
+
+    private void commit() {
+        dataset.commit();
+        changedGraphs.clear();
+        dataset.begin(ReadWrite.WRITE);
+    }
+}
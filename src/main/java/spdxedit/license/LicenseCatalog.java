@@ -0,0 +1,96 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+ */
+package spdxedit.license;
+
+import com.google.common.collect.ImmutableList;
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
+import org.spdx.rdfparser.license.ListedLicenses;
+import org.spdx.rdfparser.license.SpdxListedLicense;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The SPDX listed licenses, shared by all license editors: their sorted IDs, read once in the background, and the
+ * licenses themselves, each read the first time it's asked for.
+ * <p>
+ * The licenses aren't read ahead in the background: the SPDX tools' caches of listed licenses aren't safe for use
+ * from several threads at once, and the UI thread reads listed licenses whenever it parses a license expression.
+ * <p>
+ * Where the licenses are read from is up to {@link ListedLicenses}; the UI has it read the snapshot bundled with the
+ * SPDX tools.
+ */
+public final class LicenseCatalog {
+
+    private static FutureTask<LicenseCatalog> loading;
+
+    private final List<String> licenseIds;
+    private final Map<String, SpdxListedLicense> licenses = new ConcurrentHashMap<>();
+
+    private LicenseCatalog(String[] licenseIds) {
+        String[] sorted = licenseIds.clone();
+        Arrays.sort(sorted);
+        this.licenseIds = ImmutableList.copyOf(sorted);
+    }
+
+    /**
+     * Starts loading the catalog in the background, unless that's already started.
+     */
+    public static synchronized void preload() {
+        if (loading != null) return;
+        loading = new FutureTask<>(LicenseCatalog::load);
+        Thread thread = new Thread(loading, "spdx-license-catalog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets the catalog, waiting for its IDs to be loaded if they aren't yet.
+     */
+    public static LicenseCatalog getDefault() {
+        FutureTask<LicenseCatalog> task;
+        synchronized (LicenseCatalog.class) {
+            preload();
+            task = loading;
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading the SPDX license list", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Unable to load the SPDX license list", e.getCause());
+        }
+    }
+
+    //Runs on the loading thread
+    private static LicenseCatalog load() {
+        return new LicenseCatalog(ListedLicenses.getListedLicenses().getSpdxListedLicenseIds());
+    }
+
+    /**
+     * The IDs of all listed licenses, sorted.
+     */
+    public List<String> getLicenseIds() {
+        return licenseIds;
+    }
+
+    /**
+     * The listed license with the ID, or null if there isn't one.
+     */
+    public SpdxListedLicense getLicense(String id) {
+        if (id == null) return null;
+        return licenses.computeIfAbsent(id, key -> {
+            try {
+                return ListedLicenses.getListedLicenses().getListedLicenseById(key);
+            } catch (InvalidSPDXAnalysisException e) {
+                throw new RuntimeException("Unable to read listed license " + key, e);
+            }
+        });
+    }
+}
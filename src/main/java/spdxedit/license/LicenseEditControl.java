@@ -10,7 +10,6 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Pane;
 import javafx.util.StringConverter;
 import org.apache.commons.lang3.StringUtils;
-import org.spdx.rdfparser.InvalidSPDXAnalysisException;
 import org.spdx.rdfparser.SpdxDocumentContainer;
 import org.spdx.rdfparser.license.*;
 import org.spdx.rdfparser.model.SpdxDocument;
@@ -115,7 +114,7 @@ public class LicenseEditControl {
         rdoStandard.selectedProperty().addListener((observable, oldValue, newValue) -> chcListedLicense.setDisable(!newValue));
         rdoExtracted.selectedProperty().addListener((observable, oldValue, newValue) -> chcExtractedLicenses.setDisable(!newValue));
 
-        chcListedLicense.getItems().addAll(Arrays.stream(ListedLicenses.getListedLicenses().getSpdxListedLicenseIds()).sorted().collect(Collectors.toList()));
+        chcListedLicense.getItems().addAll(LicenseCatalog.getDefault().getLicenseIds());
         chcExtractedLicenses.setConverter(new StringConverter<ExtractedLicenseInfo>() {
             @Override
             public String toString(ExtractedLicenseInfo object) {
@@ -179,11 +178,7 @@ public class LicenseEditControl {
         } else if (rdoNone.isSelected()) {
             result = new SpdxNoneLicense();
         } else if (rdoStandard.isSelected()) {
-            try {
-                result = ListedLicenses.getListedLicenses().getListedLicenseById(chcListedLicense.getValue());
-            } catch (InvalidSPDXAnalysisException e) {
-                throw new RuntimeException(e);
-            }
+            result = LicenseCatalog.getDefault().getLicense(chcListedLicense.getValue());
         } else if (rdoExtracted.isSelected()) {
             result = chcExtractedLicenses.getValue();
         }
@@ -0,0 +1,317 @@
+package spdxedit.scan;
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spdx.rdfparser.model.SpdxFile.FileType;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An on-disk cache of file checksums and types, keyed by absolute path and validated against the file's size,
+ * modification time and file key (the inode, where the platform provides one).
+ * <p>
+ * Entries are kept in least-recently-used order and the oldest are evicted once the cache reaches its
+ * size cap. The cache is loaded on first use and written back by {@link #flush()}: the default cache at
+ * shutdown, and in the background whenever {@value #FLUSH_THRESHOLD} entries have changed or been used since
+ * it was last written, so that eviction order survives a restart. A rescan of an unchanged tree therefore costs only the stat the directory walk performs anyway. File types are remembered along with the
+ * rules they were classified by; should the rules change, only the first block of each file is reread.
+ * <p>
+ * The default cache lives in {@code ~/.spdxedit/checksum-cache.bin}. The system property
+ * {@code spdxedit.checksumCache} overrides the location ({@code none} disables the cache), and
+ * {@code spdxedit.checksumCache.maxEntries} overrides the size cap.
+ */
+public class ChecksumCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChecksumCache.class);
+
+    private static final int MAGIC = 0x53504443;
+    private static final int FORMAT_VERSION = 2;
+    //Entries in this format have no file types
+    private static final int FORMAT_VERSION_CHECKSUMS_ONLY = 1;
+    private static final int DEFAULT_MAX_ENTRIES = 500_000;
+    //SHA-1, SHA-256 and MD5, back to back
+    private static final int DIGESTS_LENGTH = 20 + 32 + 16;
+    private static final int UNKNOWN_FILE_TYPES = -1;
+    static final int FLUSH_THRESHOLD = 50_000;
+
+    private static final ExecutorService flusher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "spdx-checksum-cache-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final ChecksumCache defaultCache = createDefault();
+
+    private final Path storeFile;
+    private final int maxEntries;
+    private final FileTypeClassifier classifier;
+    private LinkedHashMap<String, Entry> entries;
+    private boolean dirty = false;
+    private int changesSinceFlush = 0;
+    //Held while writing, which happens outside the cache's own lock
+    private final Object writeLock = new Object();
+
+    /**
+     * @param storeFile  The file the cache is persisted in, or null for a cache that is never persisted.
+     * @param maxEntries The maximum number of files remembered.
+     */
+    public ChecksumCache(Path storeFile, int maxEntries) {
+        this(storeFile, maxEntries, FileTypeClassifier.getDefault());
+    }
+
+    /**
+     * @param classifier Classifies the files whose types aren't cached.
+     */
+    public ChecksumCache(Path storeFile, int maxEntries, FileTypeClassifier classifier) {
+        this.storeFile = storeFile;
+        this.maxEntries = maxEntries;
+        this.classifier = classifier;
+    }
+
+    public static ChecksumCache getDefault() {
+        return defaultCache;
+    }
+
+    private static ChecksumCache createDefault() {
+        String location = System.getProperty("spdxedit.checksumCache");
+        int maxEntries = Integer.getInteger("spdxedit.checksumCache.maxEntries", DEFAULT_MAX_ENTRIES);
+        if ("none".equalsIgnoreCase(location)) {
+            return new ChecksumCache(null, 0);
+        }
+        Path storeFile = location != null ? Paths.get(location) : Paths.get(System.getProperty("user.home"), ".spdxedit", "checksum-cache.bin");
+        ChecksumCache result = new ChecksumCache(storeFile, maxEntries);
+        Runtime.getRuntime().addShutdownHook(new Thread(result::flush, "spdx-checksum-cache-flush"));
+        return result;
+    }
+
+    /**
+     * Gets the checksums of the file, computing them only if the file isn't in the cache or has changed since.
+     *
+     * @param attributes The current attributes of the file.
+     */
+    public FileChecksums getChecksums(Path file, BasicFileAttributes attributes) throws IOException {
+        return getContent(file, attributes).getChecksums();
+    }
+
+    public FileChecksums getChecksums(Path file) throws IOException {
+        return getChecksums(file, Files.readAttributes(file, BasicFileAttributes.class));
+    }
+
+    /**
+     * Gets the checksums and types of the file, reading it only if the file isn't in the cache or has changed since.
+     * Should only the rules for file types have changed, only the first block of the file is read.
+     *
+     * @param attributes The current attributes of the file.
+     */
+    public FileContent getContent(Path file, BasicFileAttributes attributes) throws IOException {
+        if (maxEntries <= 0) {
+            return ChecksumEngine.computeContent(file, classifier);
+        }
+        String key = file.toAbsolutePath().toString();
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        String fileKey = Objects.toString(attributes.fileKey(), "");
+        Entry cached;
+        synchronized (this) {
+            cached = getEntries().get(key);
+        }
+        FileContent content;
+        if (cached != null && cached.matches(size, modified, fileKey)) {
+            if (cached.fileTypes != UNKNOWN_FILE_TYPES) {
+                //The lookup made the entry the most recently used, which is only persisted as a change
+                recordChange();
+                return new FileContent(cached.toChecksums(), toFileTypes(cached.fileTypes));
+            }
+            content = new FileContent(cached.toChecksums(), classifier.classify(file));
+        } else {
+            content = ChecksumEngine.computeContent(file, classifier);
+        }
+        Entry entry = new Entry(size, modified, fileKey, content.getChecksums(), toMask(content.getFileTypes()));
+        synchronized (this) {
+            getEntries().put(key, entry);
+        }
+        recordChange();
+        return content;
+    }
+
+    //Flushes in the background once enough entries have been added or used
+    private void recordChange() {
+        boolean flushNow;
+        synchronized (this) {
+            dirty = true;
+            flushNow = ++changesSinceFlush == FLUSH_THRESHOLD && storeFile != null;
+        }
+        if (flushNow) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    public FileContent getContent(Path file) throws IOException {
+        return getContent(file, Files.readAttributes(file, BasicFileAttributes.class));
+    }
+
+    /**
+     * Writes the cache to disk if it has changed since it was loaded or last flushed.
+     * Failures are logged, never thrown - losing the cache only costs time.
+     * <p>
+     * The entries are copied under the cache's lock, and written without it, so lookups go on meanwhile.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            String[] keys;
+            Entry[] values;
+            synchronized (this) {
+                if (!dirty || storeFile == null) return;
+                //Least recently used first, so that reloading preserves eviction order.
+                keys = entries.keySet().toArray(new String[entries.size()]);
+                values = entries.values().toArray(new Entry[entries.size()]);
+                dirty = false;
+                changesSinceFlush = 0;
+            }
+            try {
+                write(keys, values);
+            } catch (IOException e) {
+                logger.warn("Unable to save checksum cache to " + storeFile, e);
+                synchronized (this) {
+                    dirty = true;
+                }
+            }
+        }
+    }
+
+    private void write(String[] keys, Entry[] values) throws IOException {
+        Files.createDirectories(storeFile.toAbsolutePath().getParent());
+        Path tempFile = Files.createTempFile(storeFile.toAbsolutePath().getParent(), "checksum-cache", ".tmp");
+        try {
+            writeEntries(tempFile, keys, values);
+            Files.move(tempFile, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    private void writeEntries(Path file, String[] keys, Entry[] values) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(classifier.getRulesHash());
+            out.writeInt(keys.length);
+            for (int i = 0; i < keys.length; ++i) {
+                Entry entry = values[i];
+                out.writeUTF(keys[i]);
+                out.writeLong(entry.size);
+                out.writeLong(entry.modified);
+                out.writeUTF(entry.fileKey);
+                out.write(entry.digests);
+                out.writeInt(entry.fileTypes);
+            }
+        }
+    }
+
+    private LinkedHashMap<String, Entry> getEntries() {
+        if (entries == null) {
+            entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+            load();
+        }
+        return entries;
+    }
+
+    private void load() {
+        if (storeFile == null || !Files.isRegularFile(storeFile)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(storeFile), 1 << 16))) {
+            int version = in.readInt() == MAGIC ? in.readInt() : 0;
+            if (version != FORMAT_VERSION && version != FORMAT_VERSION_CHECKSUMS_ONLY) {
+                logger.info("Ignoring checksum cache " + storeFile + " in an unknown format");
+                return;
+            }
+            //Types classified by other rules are classified again
+            boolean typesValid = version == FORMAT_VERSION && in.readInt() == classifier.getRulesHash();
+            int count = in.readInt();
+            for (int i = 0; i < count; ++i) {
+                String key = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                String fileKey = in.readUTF();
+                byte[] digests = new byte[DIGESTS_LENGTH];
+                in.readFully(digests);
+                int fileTypes = version == FORMAT_VERSION ? in.readInt() : UNKNOWN_FILE_TYPES;
+                entries.put(key, new Entry(size, modified, fileKey, digests, typesValid ? fileTypes : UNKNOWN_FILE_TYPES));
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to read checksum cache " + storeFile + ", starting with an empty cache", e);
+            entries.clear();
+        }
+    }
+
+    private static int toMask(FileType[] fileTypes) {
+        int result = 0;
+        for (FileType fileType : fileTypes) {
+            result |= 1 << fileType.ordinal();
+        }
+        return result;
+    }
+
+    private static FileType[] toFileTypes(int mask) {
+        return Arrays.stream(FileType.values())
+                .filter(fileType -> (mask & 1 << fileType.ordinal()) != 0)
+                .toArray(size -> new FileType[size]);
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final String fileKey;
+        private final byte[] digests;
+        //A bit per type, by ordinal, or UNKNOWN_FILE_TYPES
+        private final int fileTypes;
+
+        Entry(long size, long modified, String fileKey, byte[] digests, int fileTypes) {
+            this.size = size;
+            this.modified = modified;
+            this.fileKey = fileKey;
+            this.digests = digests;
+            this.fileTypes = fileTypes;
+        }
+
+        Entry(long size, long modified, String fileKey, FileChecksums checksums, int fileTypes) {
+            this(size, modified, fileKey, new byte[DIGESTS_LENGTH], fileTypes);
+            try {
+                byte[] sha1 = Hex.decodeHex(checksums.getSha1().toCharArray());
+                byte[] sha256 = Hex.decodeHex(checksums.getSha256().toCharArray());
+                byte[] md5 = Hex.decodeHex(checksums.getMd5().toCharArray());
+                System.arraycopy(sha1, 0, digests, 0, 20);
+                System.arraycopy(sha256, 0, digests, 20, 32);
+                System.arraycopy(md5, 0, digests, 52, 16);
+            } catch (DecoderException e) {
+                throw new IllegalArgumentException("Invalid checksum", e); //Never happens - the engine only produces hex
+            }
+        }
+
+        boolean matches(long size, long modified, String fileKey) {
+            return this.size == size && this.modified == modified && this.fileKey.equals(fileKey);
+        }
+
+        FileChecksums toChecksums() {
+            return new FileChecksums(Hex.encodeHexString(Arrays.copyOfRange(digests, 0, 20)),
+                    Hex.encodeHexString(Arrays.copyOfRange(digests, 20, 52)),
+                    Hex.encodeHexString(Arrays.copyOfRange(digests, 52, 68)));
+        }
+    }
+}
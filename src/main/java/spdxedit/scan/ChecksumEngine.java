@@ -0,0 +1,106 @@
+package spdxedit.scan;
+
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes SHA-1, SHA-256 and MD5 digests of a file, reading its content only once.
+ * <p>
+ * Large files are memory-mapped a chunk at a time; smaller ones are read through a direct buffer
+ * owned by the calling thread, so the scan workers never allocate read buffers per file.
+ * The first bytes read are also handed to a {@link FileTypeClassifier}, so classifying a file needn't open it again.
+ * Safe for concurrent use.
+ */
+public final class ChecksumEngine {
+
+    //Below this size, mapping costs more than it saves.
+    private static final long MAPPING_THRESHOLD = 1024 * 1024;
+    private static final long MAPPED_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> headBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(FileTypeClassifier.HEAD_SIZE));
+    private static final ThreadLocal<ByteBuffer> readBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER_SIZE));
+    private static final ThreadLocal<MessageDigest[]> digests = ThreadLocal.withInitial(() -> new MessageDigest[]{
+            newDigest("SHA-1"), newDigest("SHA-256"), newDigest("MD5")});
+
+    private ChecksumEngine() {
+    }
+
+    public static FileChecksums computeChecksums(Path path) throws IOException {
+        return computeChecksums(path, null);
+    }
+
+    /**
+     * Computes the digests of the file and classifies it from its name and the first bytes read for the digests.
+     */
+    public static FileContent computeContent(Path path, FileTypeClassifier classifier) throws IOException {
+        ByteBuffer head = headBuffers.get();
+        head.clear();
+        FileChecksums checksums = computeChecksums(path, head);
+        head.flip();
+        return new FileContent(checksums, classifier.classify(path.getFileName().toString(), head));
+    }
+
+    /**
+     * @param head If not null, receives the first bytes of the file, up to its remaining capacity.
+     */
+    private static FileChecksums computeChecksums(Path path, ByteBuffer head) throws IOException {
+        MessageDigest[] fileDigests = digests.get();
+        for (MessageDigest digest : fileDigests) {
+            digest.reset();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAPPING_THRESHOLD) {
+                for (long position = 0; position < size; position += MAPPED_CHUNK_SIZE) {
+                    MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_CHUNK_SIZE, size - position));
+                    copyHead(chunk, head);
+                    update(fileDigests, chunk);
+                }
+            } else {
+                ByteBuffer buffer = readBuffers.get();
+                buffer.clear();
+                while (channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    copyHead(buffer, head);
+                    update(fileDigests, buffer);
+                    buffer.clear();
+                }
+            }
+        }
+        return new FileChecksums(Hex.encodeHexString(fileDigests[0].digest()),
+                Hex.encodeHexString(fileDigests[1].digest()),
+                Hex.encodeHexString(fileDigests[2].digest()));
+    }
+
+    private static void copyHead(ByteBuffer data, ByteBuffer head) {
+        if (head == null || !head.hasRemaining()) return;
+        ByteBuffer start = data.duplicate();
+        start.limit(start.position() + Math.min(start.remaining(), head.remaining()));
+        head.put(start);
+    }
+
+    private static void update(MessageDigest[] fileDigests, ByteBuffer data) {
+        int start = data.position();
+        for (MessageDigest digest : fileDigests) {
+            data.position(start);
+            digest.update(data);
+        }
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Required digest algorithm " + algorithm + " not available", e); //Never happens - all three are mandatory in every JRE
+        }
+    }
+}
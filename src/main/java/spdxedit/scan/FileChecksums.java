@@ -0,0 +1,44 @@
+package spdxedit.scan;
+
+import org.spdx.rdfparser.model.Checksum;
+import org.spdx.rdfparser.model.Checksum.ChecksumAlgorithm;
+
+import java.util.Objects;
+
+/**
+ * The digests of a file's content, as lowercase hex strings.
+ */
+public final class FileChecksums {
+    private final String sha1;
+    private final String sha256;
+    private final String md5;
+
+    public FileChecksums(String sha1, String sha256, String md5) {
+        this.sha1 = Objects.requireNonNull(sha1);
+        this.sha256 = Objects.requireNonNull(sha256);
+        this.md5 = Objects.requireNonNull(md5);
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public String getMd5() {
+        return md5;
+    }
+
+    /**
+     * Creates SPDX checksums for all the digests, SHA-1 first.
+     */
+    public Checksum[] toSpdxChecksums() {
+        return new Checksum[]{
+                new Checksum(ChecksumAlgorithm.checksumAlgorithm_sha1, sha1),
+                new Checksum(ChecksumAlgorithm.checksumAlgorithm_sha256, sha256),
+                new Checksum(ChecksumAlgorithm.checksumAlgorithm_md5, md5)
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package spdxedit.scan;
+
+import org.spdx.rdfparser.model.SpdxFile.FileType;
+
+import java.util.Objects;
+
+/**
+ * What a single read of a file's content tells about it: its digests, and its types as classified from its name and
+ * first bytes.
+ */
+public final class FileContent {
+    private final FileChecksums checksums;
+    private final FileType[] fileTypes;
+
+    public FileContent(FileChecksums checksums, FileType[] fileTypes) {
+        this.checksums = Objects.requireNonNull(checksums);
+        this.fileTypes = Objects.requireNonNull(fileTypes);
+    }
+
+    public FileChecksums getChecksums() {
+        return checksums;
+    }
+
+    public FileType[] getFileTypes() {
+        return fileTypes.clone();
+    }
+}
@@ -0,0 +1,244 @@
+package spdxedit.scan;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spdx.rdfparser.model.SpdxFile.FileType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Classifies files into SPDX file types by their extension and by the magic bytes their content starts with.
+ * <p>
+ * The content looked at is the first block {@link ChecksumEngine} reads anyway, so a scan opens each file only once,
+ * and the types are kept in the {@link ChecksumCache} along with the checksums. Safe for concurrent use.
+ * <p>
+ * The default rules can be added to with a properties file, named by the system property
+ * {@code spdxedit.fileTypeRules}, of lines such as {@code extension.md = DOCUMENTATION,TEXT} and
+ * {@code magic.0.89504e47 = IMAGE} (the offset of the magic bytes, then the bytes in hex). Types are SPDX
+ * tag-value names.
+ */
+public final class FileTypeClassifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileTypeClassifier.class);
+
+    /**
+     * How many bytes from the start of a file the magic rules may look at.
+     */
+    public static final int HEAD_SIZE = 512;
+
+    private static final ThreadLocal<ByteBuffer> headBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(HEAD_SIZE));
+
+    private static final FileTypeClassifier defaultClassifier = createDefault();
+
+    private final Map<String, Set<FileType>> extensionTypes;
+    private final List<MagicRule> magicRules;
+    private final int rulesHash;
+
+    /**
+     * @param extensionTypes The types of files by their (case-insensitive) extension.
+     * @param magicRules     Types of files by their content, added to those by extension.
+     */
+    public FileTypeClassifier(Map<String, ? extends Collection<FileType>> extensionTypes, List<MagicRule> magicRules) {
+        ImmutableMap.Builder<String, Set<FileType>> extensions = ImmutableMap.builder();
+        extensionTypes.forEach((extension, types) -> extensions.put(StringUtils.lowerCase(extension), Collections.unmodifiableSet(EnumSet.copyOf(types))));
+        this.extensionTypes = extensions.build();
+        this.magicRules = ImmutableList.copyOf(magicRules);
+        for (MagicRule rule : magicRules) {
+            if (rule.offset + rule.magic.length > HEAD_SIZE) {
+                throw new IllegalArgumentException("Magic rule beyond the first " + HEAD_SIZE + " bytes: " + rule);
+            }
+        }
+        List<String> rules = new ArrayList<>();
+        this.extensionTypes.forEach((extension, types) -> rules.add(extension + types));
+        this.magicRules.forEach(rule -> rules.add(rule.toString()));
+        Collections.sort(rules);
+        this.rulesHash = rules.hashCode();
+    }
+
+    public static FileTypeClassifier getDefault() {
+        return defaultClassifier;
+    }
+
+    /**
+     * Classifies a file by its name and the start of its content.
+     *
+     * @param head The first bytes of the file, between its position and limit; fewer than {@link #HEAD_SIZE} only if
+     *             the file is shorter. Left unchanged.
+     */
+    public FileType[] classify(String fileName, ByteBuffer head) {
+        EnumSet<FileType> result = EnumSet.noneOf(FileType.class);
+        String extension = StringUtils.lowerCase(StringUtils.substringAfterLast(fileName, "."));
+        Set<FileType> byExtension = extensionTypes.get(extension);
+        if (byExtension != null) {
+            result.addAll(byExtension);
+        }
+        for (MagicRule rule : magicRules) {
+            if (rule.matches(head)) {
+                result.addAll(rule.types);
+            }
+        }
+        return result.toArray(new FileType[result.size()]);
+    }
+
+    /**
+     * Classifies a file, reading the start of its content.
+     */
+    public FileType[] classify(Path file) throws IOException {
+        ByteBuffer head = headBuffers.get();
+        head.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (head.hasRemaining() && channel.read(head) >= 0) ;
+        }
+        head.flip();
+        return classify(file.getFileName().toString(), head);
+    }
+
+    /**
+     * Changes whenever the rules do, so that types classified by other rules can be told apart.
+     */
+    int getRulesHash() {
+        return rulesHash;
+    }
+
+    /**
+     * Files with certain bytes at a certain offset are of certain types.
+     */
+    public static final class MagicRule {
+        private final int offset;
+        private final byte[] magic;
+        private final Set<FileType> types;
+
+        public MagicRule(int offset, byte[] magic, FileType... types) {
+            if (offset < 0 || magic.length == 0 || types.length == 0) {
+                throw new IllegalArgumentException("Invalid magic rule");
+            }
+            this.offset = offset;
+            this.magic = magic.clone();
+            this.types = Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(types)));
+        }
+
+        public MagicRule(int offset, String magic, FileType... types) {
+            this(offset, magic.getBytes(StandardCharsets.ISO_8859_1), types);
+        }
+
+        boolean matches(ByteBuffer head) {
+            int start = head.position() + offset;
+            if (start + magic.length > head.limit()) return false;
+            for (int i = 0; i < magic.length; ++i) {
+                if (head.get(start + i) != magic[i]) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return offset + ":" + Hex.encodeHexString(magic) + types;
+        }
+    }
+
+    private static FileTypeClassifier createDefault() {
+        Map<String, Set<FileType>> extensionTypes = new HashMap<>();
+        addExtensions(extensionTypes, FileType.fileType_source, "c", "cpp", "java", "h", "cs", "cxx",
+                "asmx", "mm", "m", "php", "groovy", "ruby", "py");
+        addExtensions(extensionTypes, FileType.fileType_binary, "class", "exe", "dll", "obj", "o", "jar", "bin", "so", "dylib");
+        addExtensions(extensionTypes, FileType.fileType_text, "txt", "text");
+        addExtensions(extensionTypes, FileType.fileType_archive, "tar", "gz", "jar", "zip", "7z", "arj", "tgz", "bz2", "xz", "zst", "war", "ear");
+        addExtensions(extensionTypes, FileType.fileType_spdx, "spdx");
+        addExtensions(extensionTypes, FileType.fileType_audio, "mp3", "wav", "ogg", "oga", "flac", "aac", "m4a", "wma", "mid", "midi", "aiff");
+        addExtensions(extensionTypes, FileType.fileType_image, "png", "jpg", "jpeg", "gif", "bmp", "svg", "ico", "tif", "tiff", "webp");
+        //What the usual MIME type databases call application/*
+        addExtensions(extensionTypes, FileType.fileType_application, "class", "exe", "dll", "so", "dylib", "bin", "jar", "war", "ear",
+                "zip", "gz", "tgz", "tar", "7z", "arj", "bz2", "xz", "zst", "rpm", "deb", "msi", "apk",
+                "pdf", "ps", "rtf", "doc", "docx", "xls", "xlsx", "ppt", "pptx", "odt", "ods", "odp",
+                "json", "xml", "js", "sh", "php", "swf");
+
+        List<MagicRule> magicRules = new ArrayList<>();
+        addMagic(magicRules, 0, "89504e470d0a1a0a", FileType.fileType_image);
+        addMagic(magicRules, 0, "ffd8ff", FileType.fileType_image);
+        magicRules.add(new MagicRule(0, "GIF8", FileType.fileType_image));
+        addMagic(magicRules, 0, "49492a00", FileType.fileType_image);
+        addMagic(magicRules, 0, "4d4d002a", FileType.fileType_image);
+        magicRules.add(new MagicRule(8, "WEBP", FileType.fileType_image));
+        magicRules.add(new MagicRule(0, "ID3", FileType.fileType_audio));
+        magicRules.add(new MagicRule(0, "OggS", FileType.fileType_audio));
+        magicRules.add(new MagicRule(0, "fLaC", FileType.fileType_audio));
+        magicRules.add(new MagicRule(0, "MThd", FileType.fileType_audio));
+        magicRules.add(new MagicRule(8, "WAVE", FileType.fileType_audio));
+        //ELF, PE, Java class (or Mach-O universal) and Mach-O
+        for (String magic : Arrays.asList("7f454c46", "4d5a", "cafebabe", "feedface", "feedfacf", "cefaedfe", "cffaedfe")) {
+            addMagic(magicRules, 0, magic, FileType.fileType_binary, FileType.fileType_application);
+        }
+        //Zip, gzip, 7z, bzip2, xz and zstd
+        for (String magic : Arrays.asList("504b0304", "1f8b", "377abcaf271c", "425a68", "fd377a585a00", "28b52ffd")) {
+            addMagic(magicRules, 0, magic, FileType.fileType_archive, FileType.fileType_application);
+        }
+        magicRules.add(new MagicRule(257, "ustar", FileType.fileType_archive, FileType.fileType_application));
+        magicRules.add(new MagicRule(0, "%PDF-", FileType.fileType_application));
+
+        String rulesFile = System.getProperty("spdxedit.fileTypeRules");
+        if (rulesFile != null) {
+            try {
+                loadRules(Paths.get(rulesFile), extensionTypes, magicRules);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Unable to load file type rules from " + rulesFile + ", using the default rules only", e);
+            }
+        }
+        return new FileTypeClassifier(extensionTypes, magicRules);
+    }
+
+    private static void loadRules(Path rulesFile, Map<String, Set<FileType>> extensionTypes, List<MagicRule> magicRules) throws IOException {
+        Properties rules = new Properties();
+        try (InputStream in = Files.newInputStream(rulesFile)) {
+            rules.load(in);
+        }
+        for (String key : rules.stringPropertyNames()) {
+            FileType[] types = Arrays.stream(StringUtils.split(rules.getProperty(key), ", "))
+                    .map(tag -> {
+                        FileType type = FileType.fromTag(tag.toUpperCase());
+                        if (type == null) throw new IllegalArgumentException("Unknown file type " + tag + " in rule " + key);
+                        return type;
+                    })
+                    .toArray(size -> new FileType[size]);
+            String[] parts = StringUtils.split(key, '.');
+            if (parts.length == 2 && "extension".equals(parts[0])) {
+                addExtensions(extensionTypes, types, parts[1]);
+            } else if (parts.length == 3 && "magic".equals(parts[0])) {
+                addMagic(magicRules, Integer.parseInt(parts[1]), parts[2], types);
+            } else {
+                throw new IllegalArgumentException("Invalid file type rule " + key);
+            }
+        }
+    }
+
+    private static void addExtensions(Map<String, Set<FileType>> extensionTypes, FileType type, String... extensions) {
+        addExtensions(extensionTypes, new FileType[]{type}, extensions);
+    }
+
+    private static void addExtensions(Map<String, Set<FileType>> extensionTypes, FileType[] types, String... extensions) {
+        for (String extension : extensions) {
+            extensionTypes.computeIfAbsent(extension, key -> EnumSet.noneOf(FileType.class)).addAll(Arrays.asList(types));
+        }
+    }
+
+    private static void addMagic(List<MagicRule> magicRules, int offset, String hex, FileType... types) {
+        try {
+            magicRules.add(new MagicRule(offset, Hex.decodeHex(hex.toCharArray()), types));
+        } catch (DecoderException e) {
+            throw new IllegalArgumentException("Invalid magic bytes " + hex, e);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package spdxedit.scan;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Scans files on disk for inclusion into an SPDX package.
+ * <p>
+ * Walking the directory tree happens on the calling thread, while hashing and type detection
+ * are handed off to a worker pool shared by all scans and sized to the available cores.
+ * Results are always returned in walk order, so the resulting file list (and therefore the
+ * package verification code) is identical to that of a sequential scan.
+ */
+public class PackageScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PackageScanner.class);
+
+    private static final int WORKER_COUNT = Runtime.getRuntime().availableProcessors();
+
+    //Bounded, so that walking a huge tree can't race ahead of hashing. When the queue is full, the walking thread hashes the file itself.
+    private static final ExecutorService workers = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(WORKER_COUNT * 64), new ScanThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+
+    //How many files a streaming scan may have in flight (hashed or being hashed, but not yet consumed).
+    private static final int SCAN_WINDOW = WORKER_COUNT * 256;
+
+    static {
+        ((ThreadPoolExecutor) workers).allowCoreThreadTimeOut(true);
+    }
+
+    private final Path root;
+    private final String baseUri;
+    private final boolean omitHiddenFiles;
+
+    /**
+     * @param root            The directory to scan.
+     * @param omitHiddenFiles Whether hidden files and directories should be skipped.
+     */
+    public PackageScanner(Path root, boolean omitHiddenFiles) {
+        this(root, root.toUri().toString(), omitHiddenFiles);
+    }
+
+    /**
+     * @param root            The directory to scan.
+     * @param baseUri         The URI relative to which file names are computed.
+     * @param omitHiddenFiles Whether hidden files and directories should be skipped.
+     */
+    public PackageScanner(Path root, String baseUri, boolean omitHiddenFiles) {
+        this.root = Objects.requireNonNull(root);
+        this.baseUri = Objects.requireNonNull(baseUri);
+        this.omitHiddenFiles = omitHiddenFiles;
+    }
+
+    /**
+     * The URI relative to which the names of the scanned files are computed.
+     */
+    public String getBaseUri() {
+        return baseUri;
+    }
+
+    /**
+     * Walks the directory and hashes every file found.
+     *
+     * @return The scanned files, in the order in which they were encountered by the walk.
+     */
+    public List<ScannedFile> scan() throws IOException {
+        List<ScannedFile> result = new ArrayList<>();
+        scan(result::add);
+        return result;
+    }
+
+    /**
+     * Walks the directory and hashes every file found, passing each to the consumer as soon as it and all the
+     * files before it are done. Only a bounded number of files is in flight at any time, so the memory used
+     * doesn't depend on the size of the tree.
+     *
+     * @param consumer Receives the scanned files on the calling thread, in the order in which they were
+     *                 encountered by the walk.
+     */
+    public void scan(Consumer<ScannedFile> consumer) throws IOException {
+        scan(consumer, ScanProgress.NONE);
+    }
+
+    /**
+     * Like {@link #scan(Consumer)}, reporting progress as it goes. The directory is walked once beforehand to
+     * count the files, so that the progress can be reported against the total.
+     * <p>
+     * Interrupting the calling thread stops the scan with an {@link InterruptedIOException}.
+     */
+    public void scan(Consumer<ScannedFile> consumer, ScanProgress progress) throws IOException {
+        if (progress != ScanProgress.NONE) {
+            walk((file, attrs) -> progress.fileFound(attrs.size()), false);
+        }
+        Deque<Future<ScannedFile>> pending = new ArrayDeque<>();
+        try {
+            walk((file, attrs) -> {
+                pending.add(workers.submit(() -> {
+                    ScannedFile result = scanFile(file, baseUri, attrs);
+                    progress.fileScanned(attrs.size());
+                    return result;
+                }));
+                while (pending.size() > SCAN_WINDOW) {
+                    consumer.accept(getResult(pending.remove()));
+                }
+            }, true);
+            while (!pending.isEmpty()) {
+                consumer.accept(getResult(pending.remove()));
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void walk(FileHandler handler, boolean logFailures) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (omitHiddenFiles && dir.getFileName().toString().startsWith(".")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                } else
+                    return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Scan interrupted");
+                }
+                // Skip if omitHidden is set and this file is hidden.
+                if (omitHiddenFiles && (file.getFileName().toString().startsWith(".") || Files.isHidden(file)))
+                    return FileVisitResult.CONTINUE;
+                handler.accept(file, attrs);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                if (logFailures) {
+                    logger.error("Unable to add file " + file.toAbsolutePath().toString(), exc);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Hashes the provided files in parallel.
+     *
+     * @return The scanned files, in the order provided.
+     */
+    public static List<ScannedFile> scanFiles(List<Path> files, String baseUri) throws IOException {
+        List<Future<ScannedFile>> pending = new ArrayList<>(files.size());
+        try {
+            for (Path file : files) {
+                pending.add(workers.submit(() -> scanFile(file, baseUri)));
+            }
+            return collect(pending);
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Hashes and classifies a single file on the calling thread.
+     */
+    public static ScannedFile scanFile(Path file, String baseUri) throws IOException {
+        return scanFile(file, baseUri, Files.readAttributes(file, BasicFileAttributes.class));
+    }
+
+    private static ScannedFile scanFile(Path file, String baseUri, BasicFileAttributes attributes) throws IOException {
+        FileContent content = ChecksumCache.getDefault().getContent(file, attributes);
+        return new ScannedFile(file, getRelativeName(file, baseUri), content.getChecksums(), content.getFileTypes());
+    }
+
+    public static String getRelativeName(Path file, String baseUri) {
+        return StringUtils.removeStart(file.toUri().toString(), baseUri);
+    }
+
+    private static List<ScannedFile> collect(List<Future<ScannedFile>> pending) throws IOException {
+        List<ScannedFile> result = new ArrayList<>(pending.size());
+        for (Future<ScannedFile> future : pending) {
+            result.add(getResult(future));
+        }
+        return result;
+    }
+
+    private static ScannedFile getResult(Future<ScannedFile> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Scan interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FileHandler {
+        void accept(Path file, BasicFileAttributes attrs) throws IOException;
+    }
+
+    private static class ScanThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "spdx-scan-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package spdxedit.scan;
+
+/**
+ * Counts of the changes an incremental package rescan applied.
+ */
+public final class RescanSummary {
+    private final int added;
+    private final int removed;
+    private final int changed;
+    private final int unchanged;
+
+    public RescanSummary(int added, int removed, int changed, int unchanged) {
+        this.added = added;
+        this.removed = removed;
+        this.changed = changed;
+        this.unchanged = unchanged;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public int getRemoved() {
+        return removed;
+    }
+
+    /**
+     * The number of files whose content changed and which were rehashed.
+     */
+    public int getChanged() {
+        return changed;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public boolean hasChanges() {
+        return added + removed + changed > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d added, %d removed, %d changed, %d unchanged", added, removed, changed, unchanged);
+    }
+}
@@ -0,0 +1,31 @@
+package spdxedit.scan;
+
+/**
+ * Receives the progress of a {@link PackageScanner#scan(java.util.function.Consumer, ScanProgress) scan}.
+ * Every file is found before any file is scanned, so the totals are known by the time scanning starts.
+ */
+public interface ScanProgress {
+
+    /**
+     * Reports nothing. A scan with no progress to report doesn't count its files up front.
+     */
+    ScanProgress NONE = new ScanProgress() {
+        @Override
+        public void fileFound(long size) {
+        }
+
+        @Override
+        public void fileScanned(long size) {
+        }
+    };
+
+    /**
+     * A file to be scanned was found. Called on the scanning thread.
+     */
+    void fileFound(long size);
+
+    /**
+     * A file was hashed, or its checksums were found in the cache. Called on any thread.
+     */
+    void fileScanned(long size);
+}
@@ -0,0 +1,46 @@
+package spdxedit.scan;
+
+import org.spdx.rdfparser.model.SpdxFile.FileType;
+
+import java.nio.file.Path;
+
+/**
+ * The result of hashing and classifying a single file on disk, before it is turned into an SPDX file.
+ * Holds no reference to any RDF model, so it can be produced on any thread.
+ */
+public final class ScannedFile {
+    private final Path path;
+    private final String name;
+    private final FileChecksums checksums;
+    private final FileType[] fileTypes;
+
+    ScannedFile(Path path, String name, FileChecksums checksums, FileType[] fileTypes) {
+        this.path = path;
+        this.name = name;
+        this.checksums = checksums;
+        this.fileTypes = fileTypes;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * The name of the file relative to the base URI of the scan.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getSha1() {
+        return checksums.getSha1();
+    }
+
+    public FileChecksums getChecksums() {
+        return checksums;
+    }
+
+    public FileType[] getFileTypes() {
+        return fileTypes;
+    }
+}
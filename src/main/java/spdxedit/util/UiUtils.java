@@ -1,14 +1,26 @@
 package spdxedit.util;
 
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import spdxedit.MainSceneController;
 
+import java.util.Optional;
+
 /**
  * Common UI utilities
  */
@@ -37,4 +49,54 @@ public class UiUtils {
         AnchorPane.setBottomAnchor(control, 0D);
         return result;
     }
+
+    /**
+     * Runs the task on a background thread, showing its message and progress in a modal window until it's done.
+     * The window's cancel button, or closing the window, cancels the task.
+     *
+     * @return The task's result, or empty if it was cancelled.
+     * @throws RuntimeException If the task failed.
+     */
+    public static <T> Optional<T> runWithProgress(String title, Task<T> task) {
+        Stage stage = new Stage();
+        stage.setTitle(title);
+        stage.initModality(Modality.APPLICATION_MODAL);
+        stage.getIcons().addAll(ICON_IMAGE_VIEW.getImage());
+
+        Label message = new Label();
+        message.textProperty().bind(task.messageProperty());
+        ProgressBar progress = new ProgressBar();
+        progress.setMaxWidth(Double.MAX_VALUE);
+        progress.progressProperty().bind(task.progressProperty());
+        Button cancel = new Button("Cancel");
+        cancel.setCancelButton(true);
+        cancel.setOnAction(event -> task.cancel());
+        HBox buttons = new HBox(cancel);
+        buttons.setAlignment(Pos.CENTER_RIGHT);
+        VBox content = new VBox(10, message, progress, buttons);
+        content.setPadding(new Insets(10));
+        content.setPrefWidth(450);
+        stage.setScene(new Scene(content));
+        stage.setOnCloseRequest(event -> task.cancel());
+
+        //State changes arrive on the FX thread, so the window is always showing by the time the task is done
+        task.stateProperty().addListener((observable, oldState, newState) -> {
+            if (newState == Worker.State.SUCCEEDED || newState == Worker.State.FAILED || newState == Worker.State.CANCELLED) {
+                stage.close();
+            }
+        });
+        Thread thread = new Thread(task, title);
+        thread.setDaemon(true);
+        thread.start();
+        stage.showAndWait();
+
+        switch (task.getState()) {
+            case SUCCEEDED:
+                return Optional.of(task.getValue());
+            case FAILED:
+                throw new RuntimeException(title + " failed", task.getException());
+            default:
+                return Optional.empty();
+        }
+    }
 }
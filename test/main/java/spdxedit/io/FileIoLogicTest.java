@@ -0,0 +1,34 @@
+package spdxedit.io;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+
+public class FileIoLogicTest {
+
+    @Test
+    public void replacedFileKeepsPermissionsTest() throws Exception {
+        Path directory = Files.createTempDirectory("spdxedit-write");
+        try {
+            Path file = directory.resolve("document.rdf");
+            Files.write(file, "before".getBytes(StandardCharsets.UTF_8));
+            Assume.assumeNotNull(Files.getFileAttributeView(file, PosixFileAttributeView.class));
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-rw----"));
+
+            FileIoLogic.writeAtomically(file.toFile(), out -> out.write("after".getBytes(StandardCharsets.UTF_8)));
+
+            Assert.assertEquals("after", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            Assert.assertEquals(PosixFilePermissions.fromString("rw-rw----"), Files.getPosixFilePermissions(file));
+            Assert.assertEquals(1, directory.toFile().list().length);
+        } finally {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package spdxedit.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spdx.rdfparser.license.SpdxNoAssertionLicense;
+import org.spdx.rdfparser.model.SpdxDocument;
+import spdxedit.SpdxLogic;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+public class FormatDetectorTest {
+
+    @Test
+    public void detectsEveryFormatTest() throws Exception {
+        Path directoryPath = Paths.get(this.getClass().getClassLoader().getResource("hashTestFiles").toURI());
+        SpdxDocument original = SpdxLogic.createEmptyDocument("http://example.org/detect");
+        original.setName("Detection test");
+        SpdxLogic.createSpdxPackageForPath(Optional.of(directoryPath), original, new SpdxNoAssertionLicense(), "FOO", "NOASSERTION", true);
+
+        for (FileDataType type : FileDataType.values()) {
+            for (Compression compression : Compression.values()) {
+                //Deliberately misleading names: detection goes by content only
+                File file = Files.createTempFile("spdxedit", compression.getExtension() == null ? ".txt" : ".txt." + compression.getExtension()).toFile();
+                try {
+                    type.writeToFile(file, original);
+                    try (InputStream in = FileIoLogic.openInput(file)) {
+                        Assert.assertEquals(type + " " + compression, Optional.of(type), FormatDetector.detect(in));
+                    }
+                    SpdxDocument read = FileDataType.readDetected(file, warning -> {}, InMemoryDocumentStore.INSTANCE, Optional::empty).get();
+                    Assert.assertEquals(original.getName(), read.getName());
+                } finally {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void edgeCasesTest() throws Exception {
+        byte[] text = "Just some text\nthat isn't SPDX\n".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(Optional.empty(), FormatDetector.detect(text, text.length));
+        byte[] turtle = "<http://example.org/a> a <http://example.org/Thing> ;\n  <http://example.org/p> \"x\" .\n".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(Optional.of(FileDataType.TURTLE), FormatDetector.detect(turtle, turtle.length));
+        //A PNG header: binary, but not RDF Thrift
+        byte[] binary = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0x0D};
+        Assert.assertEquals(Optional.empty(), FormatDetector.detect(binary, binary.length));
+    }
+}
@@ -0,0 +1,79 @@
+package spdxedit.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
+import org.spdx.rdfparser.license.SpdxNoAssertionLicense;
+import org.spdx.rdfparser.model.SpdxDocument;
+import org.spdx.rdfparser.model.SpdxFile;
+import org.spdx.rdfparser.model.SpdxPackage;
+import org.spdx.tools.TagToRDF;
+import spdxedit.SpdxLogic;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class TagValueReaderTest {
+
+    @Test
+    public void readsWhatTagToRdfReadsTest() throws Exception {
+        Path directoryPath = Paths.get(this.getClass().getClassLoader().getResource("hashTestFiles").toURI());
+        SpdxDocument original = SpdxLogic.createEmptyDocument("http://example.org/tagvalue");
+        original.setName("Tag value test");
+        SpdxPackage pkg = SpdxLogic.createSpdxPackageForPath(Optional.of(directoryPath), original, new SpdxNoAssertionLicense(), "FOO", "NOASSERTION", true);
+        pkg.setDescription("A description\n\n# that is not a comment\nspanning lines");
+
+        File file = Files.createTempFile("spdxedit", ".spdx").toFile();
+        try {
+            FileIoLogic.writeTagValue(file, original);
+            List<ParseWarning> warnings = new ArrayList<>();
+            SpdxDocument read = FileDataType.TAG.readFromFile(file, warnings::add, InMemoryDocumentStore.INSTANCE);
+            SpdxDocument expected;
+            try (InputStream in = new FileInputStream(file)) {
+                expected = TagToRDF.convertTagFileToRdf(in, "RDF/XML", new ArrayList<>()).getSpdxDocument();
+            }
+
+            SpdxPackage readPackage = SpdxLogic.getSpdxPackagesInDocument(read).findFirst().get();
+            SpdxPackage expectedPackage = SpdxLogic.getSpdxPackagesInDocument(expected).findFirst().get();
+            Assert.assertEquals(expectedPackage.getDescription(), readPackage.getDescription());
+            Assert.assertEquals(pkg.getDescription(), readPackage.getDescription());
+            Assert.assertEquals(fileNames(expectedPackage), fileNames(readPackage));
+            Assert.assertEquals(pkg.getPackageVerificationCode().getValue(), readPackage.getPackageVerificationCode().getValue());
+            Assert.assertEquals(expected.verify(), read.verify());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void unterminatedTextReportsLineTest() throws InvalidSPDXAnalysisException {
+        String document = "SPDXVersion: SPDX-2.1\n# comment\n\nDocumentComment: <text>never\nterminated\n";
+        try {
+            TagValueReader.read(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)), warning -> {
+            });
+            Assert.fail("Unterminated text block accepted");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("line 5"));
+        }
+    }
+
+    @Test
+    public void warningLineNumberTest() {
+        Assert.assertEquals(OptionalInt.of(12), ParseWarning.fromMessage("File at line 12 invalid: Missing required checksum").getLineNumber());
+        Assert.assertEquals(OptionalInt.of(3), ParseWarning.fromMessage("Missing element for a relationship.  SPDX ID: x at line number 3").getLineNumber());
+        Assert.assertFalse(ParseWarning.fromMessage("Missing document name").getLineNumber().isPresent());
+    }
+
+    private static Set<String> fileNames(SpdxPackage pkg) throws InvalidSPDXAnalysisException {
+        return Arrays.stream(pkg.getFiles()).map(SpdxFile::getName).collect(Collectors.toSet());
+    }
+}
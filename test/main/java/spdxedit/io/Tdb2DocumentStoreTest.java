@@ -0,0 +1,85 @@
+package spdxedit.io;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.spdx.rdfparser.model.SpdxDocument;
+import spdxedit.SpdxLogic;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class Tdb2DocumentStoreTest {
+
+    private Path directory;
+    private Tdb2DocumentStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("spdxedit-store");
+        store = new Tdb2DocumentStore(directory.resolve("store"), 1000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.close();
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Test
+    public void unsavedChangesAreNotCommittedByOtherDocumentsTest() throws Exception {
+        File fileA = writeDocument("a", "Document A");
+        File fileB = writeDocument("b", "Document B");
+
+        SpdxDocument documentA = FileDataType.RDF_XML.readFromFile(fileA, warning -> {}, store);
+        documentA.setName("Unsaved A");
+        SpdxDocument documentB = FileDataType.RDF_XML.readFromFile(fileB, warning -> {}, store);
+        Assert.assertEquals("Document B", documentB.getName());
+        documentB.setName("Saved B");
+        FileDataType.RDF_XML.writeToFile(fileB, documentB, store);
+
+        //Reopened from the store, as neither file changed since
+        Assert.assertEquals("Document A", FileDataType.RDF_XML.readFromFile(fileA, warning -> {}, store).getName());
+        Assert.assertEquals("Saved B", FileDataType.RDF_XML.readFromFile(fileB, warning -> {}, store).getName());
+    }
+
+    @Test
+    public void reopeningDiscardsUnsavedChangesTest() throws Exception {
+        File file = writeDocument("a", "Document A");
+        SpdxDocument document = FileDataType.RDF_XML.readFromFile(file, warning -> {}, store);
+        document.setName("Unsaved A");
+        Assert.assertEquals("Document A", FileDataType.RDF_XML.readFromFile(file, warning -> {}, store).getName());
+    }
+
+    @Test
+    public void failedParseLeavesNothingBehindTest() throws Exception {
+        File file = writeDocument("a", "Document A");
+        FileDataType.RDF_XML.readFromFile(file, warning -> {}, store);
+        Assert.assertEquals(1, store.getGraphCount());
+
+        File broken = directory.resolve("broken.rdf").toFile();
+        //Some statements are read before the parse fails
+        Files.write(broken.toPath(), ("<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\">"
+                + "<rdf:Description rdf:about=\"http://example.org/x\"><rdf:type rdf:resource=\"http://example.org/T\"/></rdf:Description>"
+                + "<rdf:Description").getBytes(StandardCharsets.UTF_8));
+        try {
+            FileDataType.RDF_XML.readFromFile(broken, warning -> {}, store);
+            Assert.fail();
+        } catch (Exception expected) {
+        }
+        Assert.assertEquals(1, store.getGraphCount());
+        Assert.assertEquals("Document A", FileDataType.RDF_XML.readFromFile(file, warning -> {}, store).getName());
+    }
+
+    private File writeDocument(String name, String documentName) throws Exception {
+        SpdxDocument document = SpdxLogic.createEmptyDocument("http://example.org/" + name);
+        document.setName(documentName);
+        File file = directory.resolve(name + ".rdf").toFile();
+        FileDataType.RDF_XML.writeToFile(file, document, InMemoryDocumentStore.INSTANCE);
+        return file;
+    }
+}
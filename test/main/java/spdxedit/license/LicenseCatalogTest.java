@@ -0,0 +1,39 @@
+package spdxedit.license;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spdx.rdfparser.license.ListedLicenses;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class LicenseCatalogTest {
+
+    @BeforeClass
+    public static void useLocalLicenses() {
+        //The snapshot bundled with the SPDX tools, rather than spdx.org
+        System.setProperty("SPDXParser.OnlyUseLocalLicenses", "true");
+        ListedLicenses.resetListedLicenses();
+    }
+
+    @Test
+    public void catalogTest() {
+        LicenseCatalog catalog = LicenseCatalog.getDefault();
+        Assert.assertSame(catalog, LicenseCatalog.getDefault());
+        List<String> sorted = new ArrayList<>(catalog.getLicenseIds());
+        Collections.sort(sorted);
+        Assert.assertEquals(sorted, catalog.getLicenseIds());
+        Assert.assertTrue(catalog.getLicenseIds().contains("Apache-2.0"));
+        try {
+            catalog.getLicenseIds().add("NOT-A-LICENSE");
+            Assert.fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        Assert.assertEquals("Apache-2.0", catalog.getLicense("Apache-2.0").getLicenseId());
+        Assert.assertSame(catalog.getLicense("Apache-2.0"), catalog.getLicense("Apache-2.0"));
+        Assert.assertNull(catalog.getLicense(null));
+    }
+}
@@ -0,0 +1,91 @@
+package spdxedit.spdxlogic;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
+import org.spdx.rdfparser.license.SpdxNoAssertionLicense;
+import org.spdx.rdfparser.model.SpdxDocument;
+import org.spdx.rdfparser.model.SpdxFile;
+import org.spdx.rdfparser.model.SpdxPackage;
+import spdxedit.SpdxLogic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class AddFilesToPackageTest {
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("spdxedit-add");
+        write("top.txt", "top");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void addedFilesAreNamedAsRescanNamesThemTest() throws IOException, InvalidSPDXAnalysisException {
+        SpdxDocument document = SpdxLogic.createEmptyDocument("http://example.org");
+        SpdxPackage pkg = createPackage(document, true);
+        write("folder/sub/nested.txt", "nested");
+        write("folder/.hidden", "hidden");
+        write("other/single.txt", "single");
+
+        Path folder = directory.resolve("folder");
+        Assert.assertEquals(Optional.of(directory), SpdxLogic.findPackageRoot(pkg, folder));
+        String baseUri = directory.toUri().toString();
+        SpdxLogic.addDirectoryToPackage(document.getDocumentContainer(), pkg, folder, baseUri, !SpdxLogic.hasHiddenFiles(pkg));
+        SpdxLogic.addFilesToPackage(document.getDocumentContainer(), pkg, Arrays.asList(directory.resolve("other/single.txt")), baseUri);
+
+        Assert.assertEquals(Stream.of("top.txt", "folder/sub/nested.txt", "other/single.txt").collect(Collectors.toSet()), getNames(pkg));
+        Assert.assertEquals(SpdxLogic.computePackageVerificationCode(createPackage(true)), pkg.getPackageVerificationCode().getValue());
+        Assert.assertFalse(SpdxLogic.rescanPackage(document.getDocumentContainer(), pkg, directory, !SpdxLogic.hasHiddenFiles(pkg)).hasChanges());
+    }
+
+    @Test
+    public void hiddenFilesAreAddedToPackagesScannedWithThemTest() throws IOException, InvalidSPDXAnalysisException {
+        write(".top", "hidden");
+        SpdxDocument document = SpdxLogic.createEmptyDocument("http://example.org");
+        SpdxPackage pkg = createPackage(document, false);
+        write("folder/.hidden", "hidden");
+
+        SpdxLogic.addDirectoryToPackage(document.getDocumentContainer(), pkg, directory.resolve("folder"), directory.toUri().toString(), !SpdxLogic.hasHiddenFiles(pkg));
+
+        Assert.assertTrue(getNames(pkg).contains("folder/.hidden"));
+        Assert.assertEquals(SpdxLogic.computePackageVerificationCode(createPackage(false)), pkg.getPackageVerificationCode().getValue());
+    }
+
+    private SpdxPackage createPackage(boolean omitHiddenFiles) {
+        return createPackage(SpdxLogic.createEmptyDocument("http://example.org"), omitHiddenFiles);
+    }
+
+    private SpdxPackage createPackage(SpdxDocument document, boolean omitHiddenFiles) {
+        return SpdxLogic.createSpdxPackageForPath(Optional.of(directory), document, new SpdxNoAssertionLicense(), "FOO", "NOASSERTION", omitHiddenFiles);
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Set<String> getNames(SpdxPackage pkg) throws InvalidSPDXAnalysisException {
+        return Arrays.stream(pkg.getFiles()).map(SpdxFile::getName).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,124 @@
+package spdxedit.spdxlogic;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spdx.rdfparser.model.SpdxFile.FileType;
+import spdxedit.SpdxLogic;
+import spdxedit.scan.ChecksumCache;
+import spdxedit.scan.ChecksumEngine;
+import spdxedit.scan.FileChecksums;
+import spdxedit.scan.FileContent;
+import spdxedit.scan.FileTypeClassifier;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class FileChecksumTest {
+
+    @Test
+    public void smallFileChecksumsTest() throws URISyntaxException, IOException {
+        Path filePath = Paths.get(this.getClass().getClassLoader().getResource("hashTestFiles/ChecksumTest1.dat").toURI());
+        FileChecksums checksums = SpdxLogic.getChecksumsForFile(filePath);
+        Assert.assertEquals("7c4a8d09ca3762af61e59520943dc26494f8941b", checksums.getSha1());
+        Assert.assertEquals("8d969eef6ecad3c29a3a629280e686cf0c3f5d5a86aff3ca12020c923adc6c92", checksums.getSha256());
+        Assert.assertEquals("e10adc3949ba59abbe56e057f20f883e", checksums.getMd5());
+    }
+
+    @Test
+    public void largeFileChecksumsTest() throws IOException {
+        //Large enough to be memory-mapped
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        Path filePath = Files.createTempFile("spdxedit-checksum", ".bin");
+        try {
+            Files.write(filePath, content);
+            FileChecksums checksums = SpdxLogic.getChecksumsForFile(filePath);
+            Assert.assertEquals(DigestUtils.sha1Hex(content), checksums.getSha1());
+            Assert.assertEquals(DigestUtils.sha256Hex(content), checksums.getSha256());
+            Assert.assertEquals(DigestUtils.md5Hex(content), checksums.getMd5());
+        } finally {
+            Files.delete(filePath);
+        }
+    }
+
+    @Test
+    public void fileTypesTest() throws IOException {
+        Path directory = Files.createTempDirectory("spdxedit-types");
+        try {
+            //A PNG header, whatever the extension
+            Path image = directory.resolve("logo.dat");
+            Files.write(image, new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0, 0});
+            FileContent content = ChecksumEngine.computeContent(image, FileTypeClassifier.getDefault());
+            Assert.assertEquals(Arrays.asList(FileType.fileType_image), Arrays.asList(content.getFileTypes()));
+            Assert.assertEquals(SpdxLogic.getChecksumsForFile(image).getSha1(), content.getChecksums().getSha1());
+
+            //Large enough to be memory-mapped, starting with a zip header
+            byte[] zipContent = new byte[2 * 1024 * 1024];
+            System.arraycopy(new byte[]{'P', 'K', 3, 4}, 0, zipContent, 0, 4);
+            Path archive = directory.resolve("bundle.jar");
+            Files.write(archive, zipContent);
+            Assert.assertEquals(Arrays.asList(FileType.fileType_application, FileType.fileType_archive, FileType.fileType_binary),
+                    Arrays.asList(ChecksumEngine.computeContent(archive, FileTypeClassifier.getDefault()).getFileTypes()));
+
+            //Cached types are kept only while the rules are unchanged
+            Path storeFile = directory.resolve("cache.bin");
+            ChecksumCache cache = new ChecksumCache(storeFile, 10);
+            Assert.assertEquals(1, cache.getContent(image).getFileTypes().length);
+            cache.flush();
+            FileTypeClassifier textOnly = new FileTypeClassifier(Collections.singletonMap("dat", Collections.singleton(FileType.fileType_text)), Collections.emptyList());
+            FileContent reclassified = new ChecksumCache(storeFile, 10, textOnly).getContent(image);
+            Assert.assertEquals(Arrays.asList(FileType.fileType_text), Arrays.asList(reclassified.getFileTypes()));
+            Assert.assertEquals(content.getChecksums().getSha256(), reclassified.getChecksums().getSha256());
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void usedEntriesOutliveRestartsTest() throws IOException {
+        Path directory = Files.createTempDirectory("spdxedit-lru");
+        try {
+            Path first = directory.resolve("first.txt");
+            Path second = directory.resolve("second.txt");
+            Path third = directory.resolve("third.txt");
+            Files.write(first, "first".getBytes(StandardCharsets.UTF_8));
+            Files.write(second, "second".getBytes(StandardCharsets.UTF_8));
+            Files.write(third, "third".getBytes(StandardCharsets.UTF_8));
+            BasicFileAttributes firstAttributes = Files.readAttributes(first, BasicFileAttributes.class);
+            Path storeFile = directory.resolve("cache.bin");
+
+            ChecksumCache cache = new ChecksumCache(storeFile, 2);
+            cache.getContent(first);
+            cache.getContent(second);
+            cache.flush();
+            cache = new ChecksumCache(storeFile, 2);
+            cache.getContent(first);
+            cache.flush();
+            //Evicts the least recently used entry, which is the second file's
+            cache = new ChecksumCache(storeFile, 2);
+            cache.getContent(third);
+            cache.flush();
+
+            //Only a cached file can be looked up once it's gone
+            Files.delete(first);
+            Assert.assertEquals(DigestUtils.sha1Hex("first"), new ChecksumCache(storeFile, 2).getContent(first, firstAttributes).getChecksums().getSha1());
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package spdxedit.spdxlogic;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
+import org.spdx.rdfparser.SpdxRdfConstants;
+import org.spdx.rdfparser.license.SpdxNoAssertionLicense;
+import org.spdx.rdfparser.license.SpdxNoneLicense;
+import org.spdx.rdfparser.model.Checksum;
+import org.spdx.rdfparser.model.SpdxDocument;
+import org.spdx.rdfparser.model.SpdxFile;
+import org.spdx.rdfparser.model.SpdxPackage;
+import spdxedit.SpdxLogic;
+import spdxedit.scan.ScanProgress;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class IdenticalFilesTest {
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("spdxedit-identical");
+        write("reviewed.txt", "reviewed");
+        write("other.txt", "other");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void identicalFilesShareReviewedLicensesTest() throws IOException, InvalidSPDXAnalysisException {
+        SpdxDocument doc = SpdxLogic.createEmptyDocument("http://example.org");
+        SpdxPackage reviewedPkg = SpdxLogic.createSpdxPackageForPath(Optional.of(directory), doc, new SpdxNoAssertionLicense(), "FOO", "NOASSERTION", true);
+        findFile(reviewedPkg, "reviewed.txt").setLicenseConcluded(new SpdxNoneLicense());
+        findFile(reviewedPkg, "reviewed.txt").setCopyrightText("Copyright Foo");
+
+        //A vendored copy of the same content, twice over
+        write("copy.txt", "reviewed");
+        SpdxPackage vendoredPkg = SpdxLogic.scanSpdxPackage(Optional.of(directory), new SpdxNoAssertionLicense(), "BAR", "NOASSERTION", true, ScanProgress.NONE);
+        Assert.assertEquals(2, SpdxLogic.addScannedPackageToDocument(doc, vendoredPkg, Optional.of(directory), true));
+
+        for (String name : Arrays.asList("reviewed.txt", "copy.txt")) {
+            Assert.assertTrue(findFile(vendoredPkg, name).getLicenseConcluded() instanceof SpdxNoneLicense);
+            Assert.assertEquals("Copyright Foo", findFile(vendoredPkg, name).getCopyrightText());
+        }
+        Assert.assertTrue(findFile(vendoredPkg, "other.txt").getLicenseConcluded() instanceof SpdxNoAssertionLicense);
+        //The reviewed copy itself is untouched
+        Assert.assertEquals("Copyright Foo", findFile(reviewedPkg, "reviewed.txt").getCopyrightText());
+
+        //The checksum of the content is written to the model once
+        Assert.assertEquals(getSha1Checksum(findFile(vendoredPkg, "reviewed.txt")).getNode(), getSha1Checksum(findFile(vendoredPkg, "copy.txt")).getNode());
+        Model model = doc.getDocumentContainer().getModel();
+        Property checksumValue = model.createProperty(SpdxRdfConstants.SPDX_NAMESPACE, SpdxRdfConstants.PROP_CHECKSUM_VALUE);
+        String sha1 = SpdxLogic.getChecksumForFile(directory.resolve("copy.txt"));
+        Assert.assertEquals(1, model.listSubjectsWithProperty(checksumValue, sha1).toList().size());
+    }
+
+    private void write(String name, String content) throws IOException {
+        Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SpdxFile findFile(SpdxPackage pkg, String name) throws InvalidSPDXAnalysisException {
+        return Arrays.stream(pkg.getFiles()).filter(file -> name.equals(file.getName())).findFirst().get();
+    }
+
+    private static Checksum getSha1Checksum(SpdxFile file) {
+        return Arrays.stream(file.getChecksums())
+                .filter(checksum -> checksum.getAlgorithm() == Checksum.ChecksumAlgorithm.checksumAlgorithm_sha1)
+                .findFirst().get();
+    }
+}
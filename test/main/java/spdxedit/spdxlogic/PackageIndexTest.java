@@ -0,0 +1,58 @@
+package spdxedit.spdxlogic;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spdx.rdfparser.SpdxDocumentContainer;
+import org.spdx.rdfparser.license.SpdxNoAssertionLicense;
+import org.spdx.rdfparser.model.SpdxDocument;
+import org.spdx.rdfparser.model.SpdxPackage;
+import spdxedit.PackageHandle;
+import spdxedit.PackageIndex;
+import spdxedit.SpdxLogic;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class PackageIndexTest {
+
+    @Test
+    public void indexTracksPackagesTest() throws Exception {
+        SpdxDocument original = SpdxLogic.createEmptyDocument("http://example.org/index");
+        addPackage(original, "FIRST");
+        addPackage(original, "SECOND");
+
+        //A fresh container over the same model, as when a document is loaded
+        SpdxDocumentContainer loaded = new SpdxDocumentContainer(original.getDocumentContainer().getModel());
+        PackageIndex index = PackageIndex.forDocument(loaded);
+        Assert.assertSame(index, PackageIndex.forDocument(loaded));
+        Assert.assertEquals(Arrays.asList("FIRST", "SECOND"), names(index.getPackages()));
+
+        SpdxPackage third = addPackage(loaded.getSpdxDocument(), "THIRD");
+        Assert.assertEquals(Arrays.asList("FIRST", "SECOND", "THIRD"), names(index.getPackages()));
+        Assert.assertSame(third, index.getHandle(third).getPackage());
+
+        //The model doesn't keep the order packages were added in
+        PackageHandle first = index.getPackages().stream().filter(handle -> "FIRST".equals(handle.getName())).findFirst().get();
+        Assert.assertEquals("FIRST", first.getPackage().getName());
+        Assert.assertTrue(SpdxLogic.getSpdxPackagesInDocument(loaded.getSpdxDocument()).anyMatch(pkg -> pkg == first.getPackage()));
+        first.getPackage().setName("RENAMED");
+        Assert.assertEquals("RENAMED", first.getName());
+
+        //Rebuilt from the model once the document is closed
+        PackageIndex.documentClosed(loaded);
+        Assert.assertNotSame(index, PackageIndex.forDocument(loaded));
+        Assert.assertEquals(Arrays.asList("RENAMED", "SECOND", "THIRD"), names(PackageIndex.forDocument(loaded).getPackages()));
+    }
+
+    private static SpdxPackage addPackage(SpdxDocument document, String name) {
+        SpdxPackage result = SpdxLogic.createSpdxPackageForPath(Optional.empty(), document, new SpdxNoAssertionLicense(), name, "NOASSERTION", true);
+        SpdxLogic.addPackageToDocument(document, result);
+        return result;
+    }
+
+    private static List<String> names(List<PackageHandle> handles) {
+        return handles.stream().map(PackageHandle::getName).sorted().collect(Collectors.toList());
+    }
+}
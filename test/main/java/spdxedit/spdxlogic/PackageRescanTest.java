@@ -0,0 +1,93 @@
+package spdxedit.spdxlogic;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
+import org.spdx.rdfparser.license.SpdxNoAssertionLicense;
+import org.spdx.rdfparser.license.SpdxNoneLicense;
+import org.spdx.rdfparser.model.SpdxDocument;
+import org.spdx.rdfparser.model.SpdxFile;
+import org.spdx.rdfparser.model.SpdxPackage;
+import spdxedit.SpdxLogic;
+import spdxedit.scan.RescanSummary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class PackageRescanTest {
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("spdxedit-rescan");
+        write("unchanged.txt", "unchanged");
+        write("changed.txt", "before");
+        write("removed.txt", "removed");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void rescanKeepsCuratedDataTest() throws IOException, InvalidSPDXAnalysisException {
+        SpdxDocument doc = SpdxLogic.createEmptyDocument("http://example.org");
+        SpdxPackage pkg = SpdxLogic.createSpdxPackageForPath(Optional.of(directory), doc, new SpdxNoAssertionLicense(), "FOO", "NOASSERTION", true);
+        findFile(pkg, "unchanged.txt").setLicenseConcluded(new SpdxNoneLicense());
+        findFile(pkg, "changed.txt").setLicenseConcluded(new SpdxNoneLicense());
+
+        write("changed.txt", "after");
+        write("added.txt", "added");
+        Files.delete(directory.resolve("removed.txt"));
+
+        RescanSummary summary = SpdxLogic.rescanPackage(doc.getDocumentContainer(), pkg, directory, true);
+        Assert.assertEquals(1, summary.getAdded());
+        Assert.assertEquals(1, summary.getRemoved());
+        Assert.assertEquals(1, summary.getChanged());
+        Assert.assertEquals(1, summary.getUnchanged());
+
+        Assert.assertEquals(3, pkg.getFiles().length);
+        Assert.assertTrue(findFile(pkg, "unchanged.txt").getLicenseConcluded() instanceof SpdxNoneLicense);
+        Assert.assertTrue(findFile(pkg, "changed.txt").getLicenseConcluded() instanceof SpdxNoneLicense);
+        Assert.assertEquals(SpdxLogic.getChecksumForFile(directory.resolve("changed.txt")), findFile(pkg, "changed.txt").getSha1());
+
+        SpdxPackage rebuilt = SpdxLogic.createSpdxPackageForPath(Optional.of(directory), SpdxLogic.createEmptyDocument("http://example.org/2"),
+                new SpdxNoAssertionLicense(), "FOO", "NOASSERTION", true);
+        Assert.assertEquals(SpdxLogic.computePackageVerificationCode(rebuilt), pkg.getPackageVerificationCode().getValue());
+
+        Assert.assertFalse(SpdxLogic.rescanPackage(doc.getDocumentContainer(), pkg, directory, true).hasChanges());
+    }
+
+    @Test
+    public void rescanKeepsHiddenFilesOfPackagesScannedWithThemTest() throws IOException, InvalidSPDXAnalysisException {
+        write(".hidden", "hidden");
+        SpdxDocument doc = SpdxLogic.createEmptyDocument("http://example.org");
+        SpdxPackage withHidden = SpdxLogic.createSpdxPackageForPath(Optional.of(directory), doc, new SpdxNoAssertionLicense(), "FOO", "NOASSERTION", false);
+        SpdxPackage withoutHidden = SpdxLogic.createSpdxPackageForPath(Optional.of(directory), doc, new SpdxNoAssertionLicense(), "BAR", "NOASSERTION", true);
+        Assert.assertTrue(SpdxLogic.hasHiddenFiles(withHidden));
+        Assert.assertFalse(SpdxLogic.hasHiddenFiles(withoutHidden));
+
+        Assert.assertFalse(SpdxLogic.rescanPackage(doc.getDocumentContainer(), withHidden, directory, !SpdxLogic.hasHiddenFiles(withHidden)).hasChanges());
+        Assert.assertFalse(SpdxLogic.rescanPackage(doc.getDocumentContainer(), withoutHidden, directory, !SpdxLogic.hasHiddenFiles(withoutHidden)).hasChanges());
+    }
+
+    private void write(String name, String content) throws IOException {
+        Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SpdxFile findFile(SpdxPackage pkg, String name) throws InvalidSPDXAnalysisException {
+        return Arrays.stream(pkg.getFiles()).filter(file -> name.equals(file.getName())).findFirst().get();
+    }
+}
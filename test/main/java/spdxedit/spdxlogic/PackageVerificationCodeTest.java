@@ -15,6 +15,7 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Optional;
 
 /**
@@ -56,4 +57,59 @@ public class PackageVerificationCodeTest {
         Assert.assertEquals(expectedVerificationCode, pkg.getPackageVerificationCode().getValue());
 
     }
+
+    @Test
+    public void excludeFileTest() throws URISyntaxException, InvalidSPDXAnalysisException {
+        Path directoryPath = Paths.get(this.getClass().getClassLoader().getResource("hashTestFiles").toURI());
+        SpdxDocument doc = SpdxLogic.createEmptyDocument("http://example.org");
+
+        SpdxPackage pkg = SpdxLogic.createSpdxPackageForPath(Optional.of(directoryPath), doc, ListedLicenses.getListedLicenses().getListedLicenseById("GPL-2.0"), "FOO", "NO COMMENT", true);
+        final String twoFileVerificationCode = "36b3d9fdaae5c74d3bc5528c28695236cc54dfd2";
+        SpdxFile file = pkg.getFiles()[0];
+        SpdxLogic.excludeFileFromVerification(pkg, file);
+        Assert.assertTrue(SpdxLogic.isFileExcludedFromVerification(pkg, file));
+        Assert.assertNotEquals(twoFileVerificationCode, pkg.getPackageVerificationCode().getValue());
+        Assert.assertEquals(SpdxLogic.computePackageVerificationCode(pkg), pkg.getPackageVerificationCode().getValue());
+
+        SpdxLogic.unexcludeFileFromVerification(pkg, file);
+        Assert.assertFalse(SpdxLogic.isFileExcludedFromVerification(pkg, file));
+        Assert.assertEquals(twoFileVerificationCode, pkg.getPackageVerificationCode().getValue());
+    }
+
+    @Test
+    public void excludeFileThroughAnotherInstanceTest() throws URISyntaxException, InvalidSPDXAnalysisException {
+        Path directoryPath = Paths.get(this.getClass().getClassLoader().getResource("hashTestFiles").toURI());
+        SpdxDocument doc = SpdxLogic.createEmptyDocument("http://example.org");
+
+        SpdxPackage pkg = SpdxLogic.createSpdxPackageForPath(Optional.of(directoryPath), doc, ListedLicenses.getListedLicenses().getListedLicenseById("GPL-2.0"), "FOO", "NO COMMENT", true);
+        SpdxFile file = pkg.getFiles()[0];
+        Assert.assertFalse(SpdxLogic.isFileExcludedFromVerification(pkg, file));
+
+        //The same package, as read from the document again
+        SpdxPackage samePackage = new SpdxPackage(doc.getDocumentContainer(), pkg.getNode());
+        SpdxFile sameFile = Arrays.stream(samePackage.getFiles()).filter(other -> file.getName().equals(other.getName())).findFirst().get();
+        SpdxLogic.excludeFileFromVerification(samePackage, sameFile);
+        Assert.assertTrue(SpdxLogic.isFileExcludedFromVerification(pkg, file));
+        SpdxLogic.unexcludeFileFromVerification(pkg, file);
+        Assert.assertFalse(SpdxLogic.isFileExcludedFromVerification(samePackage, sameFile));
+        Assert.assertEquals(SpdxLogic.computePackageVerificationCode(pkg), samePackage.getPackageVerificationCode().getValue());
+    }
+
+    @Test
+    public void unexcludeKeepsOrderOfOtherExclusionsTest() throws URISyntaxException, InvalidSPDXAnalysisException {
+        Path directoryPath = Paths.get(this.getClass().getClassLoader().getResource("hashTestFiles").toURI());
+        SpdxDocument doc = SpdxLogic.createEmptyDocument("http://example.org");
+
+        SpdxPackage created = SpdxLogic.createSpdxPackageForPath(Optional.of(directoryPath), doc, ListedLicenses.getListedLicenses().getListedLicenseById("GPL-2.0"), "FOO", "NO COMMENT", true);
+        created.getPackageVerificationCode().setExcludedFileNames(new String[]{"zeta", "alpha", "mu"});
+        SpdxPackage pkg = new SpdxPackage(doc.getDocumentContainer(), created.getNode());
+        SpdxFile file = pkg.getFiles()[0];
+        SpdxLogic.excludeFileFromVerification(pkg, file);
+        String[] excluded = pkg.getPackageVerificationCode().getExcludedFileNames();
+        Assert.assertEquals(4, excluded.length);
+
+        SpdxLogic.unexcludeFileFromVerification(pkg, file);
+        Assert.assertArrayEquals(Arrays.stream(excluded).filter(name -> !name.equals(file.getName())).toArray(),
+                pkg.getPackageVerificationCode().getExcludedFileNames());
+    }
 }
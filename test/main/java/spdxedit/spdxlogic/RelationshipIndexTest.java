@@ -0,0 +1,122 @@
+package spdxedit.spdxlogic;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spdx.rdfparser.SpdxDocumentContainer;
+import org.spdx.rdfparser.SpdxRdfConstants;
+import org.spdx.rdfparser.license.SpdxNoAssertionLicense;
+import org.spdx.rdfparser.model.Relationship.RelationshipType;
+import org.spdx.rdfparser.model.SpdxDocument;
+import org.spdx.rdfparser.model.SpdxFile;
+import org.spdx.rdfparser.model.SpdxFile.FileType;
+import org.spdx.rdfparser.model.SpdxPackage;
+import spdxedit.FileRelationshipRule;
+import spdxedit.RelationshipIndex;
+import spdxedit.SpdxLogic;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class RelationshipIndexTest {
+
+    @Test
+    public void bulkRelationshipEditsTest() throws Exception {
+        Path directoryPath = Paths.get(this.getClass().getClassLoader().getResource("hashTestFiles").toURI());
+        SpdxDocument doc = SpdxLogic.createEmptyDocument("http://example.org/relationships");
+        SpdxDocumentContainer container = doc.getDocumentContainer();
+        SpdxPackage pkg = SpdxLogic.createSpdxPackageForPath(Optional.of(directoryPath), doc, new SpdxNoAssertionLicense(), "FOO", "NOASSERTION", true);
+        List<SpdxFile> files = Arrays.asList(pkg.getFiles());
+        Assert.assertTrue(files.size() > 1);
+        int relationshipCount = countRelationships(container.getModel());
+
+        Assert.assertEquals(files.size(), SpdxLogic.setRelationships(container, files, RelationshipType.DATA_FILE_OF, pkg, true));
+        Assert.assertEquals(0, SpdxLogic.setRelationships(container, files, RelationshipType.DATA_FILE_OF, pkg, true));
+        SpdxFile first = files.get(0);
+        SpdxLogic.setFileRelationshipToPackage(container, first, pkg, RelationshipType.TEST_CASE_OF, true);
+        Assert.assertTrue(files.stream().allMatch(file -> SpdxLogic.hasRelationship(container, file, RelationshipType.DATA_FILE_OF, pkg)));
+        Assert.assertEquals(2, first.getRelationships().length);
+
+        //Read afresh from the model, the relationships are the same
+        RelationshipIndex loaded = RelationshipIndex.forDocument(new SpdxDocumentContainer(container.getModel()));
+        Assert.assertEquals(Arrays.asList(RelationshipType.DATA_FILE_OF, RelationshipType.TEST_CASE_OF),
+                sorted(loaded.getTypes(first.getNode(), pkg.getNode())));
+        Assert.assertTrue(loaded.contains(pkg.getNode(), RelationshipType.DESCRIBED_BY, doc.getNode()));
+
+        //Only the relationship of that type to that target is removed
+        SpdxLogic.removeRelationship(container, first, RelationshipType.DATA_FILE_OF, pkg);
+        Assert.assertFalse(SpdxLogic.hasRelationship(container, first, RelationshipType.DATA_FILE_OF, pkg));
+        Assert.assertTrue(SpdxLogic.hasRelationship(container, first, RelationshipType.TEST_CASE_OF, pkg));
+        Assert.assertEquals(1, first.getRelationships().length);
+
+        Assert.assertEquals(files.size() - 1, SpdxLogic.setRelationships(container, files, RelationshipType.DATA_FILE_OF, pkg, false));
+        SpdxLogic.setFileRelationshipToPackage(container, first, pkg, RelationshipType.TEST_CASE_OF, false);
+        Assert.assertTrue(RelationshipIndex.forDocument(container).getTypes(first.getNode(), pkg.getNode()).isEmpty());
+        //Removed relationships don't linger in the model
+        Assert.assertEquals(relationshipCount, countRelationships(container.getModel()));
+    }
+
+    @Test
+    public void fileRulesTest() throws Exception {
+        List<FileRelationshipRule> rules = FileRelationshipRule.parse("# Comment\n**/test/** = TEST_CASE_OF\n\n**/*.md = documentation of\n");
+        Assert.assertEquals(2, rules.size());
+        Assert.assertTrue(rules.get(0).matches("./test/FooTest.java"));
+        Assert.assertTrue(rules.get(0).matches("module/src/test/java/FooTest.java"));
+        Assert.assertFalse(rules.get(0).matches("src/main/Foo.java"));
+        Assert.assertTrue(rules.get(1).matches("README.md"));
+        Assert.assertTrue(rules.get(1).matches("docs/guide.md"));
+        Assert.assertEquals(RelationshipType.DOCUMENTATION_OF, rules.get(1).getRelationshipType());
+        try {
+            FileRelationshipRule.parse("**/*.md = NOT_A_TYPE");
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        Path directory = Files.createTempDirectory("spdxedit-rules");
+        try {
+            for (String name : Arrays.asList("README.md", "docs/guide.md", "src/Foo.java", "test/FooTest.java", "test/data.md")) {
+                Files.createDirectories(directory.resolve(name).getParent());
+                Files.write(directory.resolve(name), name.getBytes(StandardCharsets.UTF_8));
+            }
+            SpdxDocument doc = SpdxLogic.createEmptyDocument("http://example.org/rules");
+            SpdxDocumentContainer container = doc.getDocumentContainer();
+            SpdxPackage pkg = SpdxLogic.createSpdxPackageForPath(Optional.of(directory), doc, new SpdxNoAssertionLicense(), "FOO", "NOASSERTION", true);
+            Assert.assertEquals(5, SpdxLogic.applyFileRelationshipRules(container, pkg, rules));
+            Assert.assertEquals(0, SpdxLogic.applyFileRelationshipRules(container, pkg, rules));
+            for (SpdxFile file : pkg.getFiles()) {
+                Assert.assertEquals(file.getName(), file.getName().contains("test/"), SpdxLogic.hasRelationship(container, file, RelationshipType.TEST_CASE_OF, pkg));
+                Assert.assertEquals(file.getName(), file.getName().endsWith(".md"), SpdxLogic.hasRelationship(container, file, RelationshipType.DOCUMENTATION_OF, pkg));
+            }
+
+            List<SpdxFile> files = Arrays.asList(pkg.getFiles());
+            Assert.assertEquals(files.size(), SpdxLogic.setFileType(container, files, FileType.fileType_archive, true));
+            Assert.assertEquals(0, SpdxLogic.setFileType(container, files, FileType.fileType_archive, true));
+            Assert.assertTrue(files.stream().allMatch(file -> ArrayUtils.contains(file.getFileTypes(), FileType.fileType_archive)));
+            Assert.assertEquals(files.size(), SpdxLogic.setFileType(container, files, FileType.fileType_archive, false));
+            Assert.assertTrue(files.stream().noneMatch(file -> ArrayUtils.contains(file.getFileTypes(), FileType.fileType_archive)));
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static int countRelationships(Model model) {
+        return model.listSubjectsWithProperty(RDF.type, model.createResource(SpdxRdfConstants.SPDX_NAMESPACE + SpdxRdfConstants.CLASS_RELATIONSHIP)).toList().size();
+    }
+
+    private static List<RelationshipType> sorted(List<RelationshipType> types) {
+        RelationshipType[] result = types.toArray(new RelationshipType[types.size()]);
+        Arrays.sort(result);
+        return Arrays.asList(result);
+    }
+}